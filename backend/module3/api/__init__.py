@@ -11,6 +11,7 @@ from .dependency import router as dependency_router
 from .alerts import router as alerts_router
 from .distribution_plans import router as distribution_plans_router
 from .resilience import router as resilience_router
+from .events import router as events_router
 from fire_disaster import fire_disaster_router
 
 # Main API router
@@ -59,6 +60,12 @@ api_router.include_router(
     tags=["Agricultural Resilience"]
 )
 
+api_router.include_router(
+    events_router,
+    prefix="/events",
+    tags=["Live Events"]
+)
+
 api_router.include_router(
     fire_disaster_router,
     prefix="/fire-disaster",
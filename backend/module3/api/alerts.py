@@ -42,27 +42,27 @@ async def list_alerts(
     is_active: Optional[bool] = True,
     page: int = Query(1, ge=1),
     page_size: int = Query(20, ge=1, le=100),
+    cursor: Optional[str] = Query(None, description="next_cursor from the previous page (overrides page)"),
+    count: str = Query("exact", pattern="^(exact|estimated|none)$"),
     db: AsyncSession = Depends(get_db)
 ):
     """List shortage alerts."""
     service = ShortageAlertingService(db)
-    offset = (page - 1) * page_size
-    alerts, total = await service.list_alerts(
-        region_id=region_id,
-        alert_type=alert_type,
-        alert_level=alert_level,
-        status=status,
-        is_active=is_active,
-        limit=page_size,
-        offset=offset
-    )
-    return PaginatedResponse(
-        items=alerts,
-        total=total,
-        page=page,
-        page_size=page_size,
-        total_pages=(total + page_size - 1) // page_size
-    )
+    try:
+        result = await service.list_alerts(
+            region_id=region_id,
+            alert_type=alert_type,
+            alert_level=alert_level,
+            status=status,
+            is_active=is_active,
+            limit=page_size,
+            offset=(page - 1) * page_size,
+            cursor=cursor,
+            count=count
+        )
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+    return PaginatedResponse.from_page(result, page, page_size)
 
 
 @router.get("/critical", response_model=List[ShortageAlertResponse])
@@ -217,6 +217,20 @@ async def create_subscription(
     return subscription
 
 
+@router.patch("/subscriptions/{subscription_id}", response_model=AlertSubscriptionResponse)
+async def update_subscription(
+    subscription_id: int,
+    data: AlertSubscriptionUpdate,
+    db: AsyncSession = Depends(get_db)
+):
+    """Update an alert subscription's filters, channels or active flag."""
+    service = ShortageAlertingService(db)
+    subscription = await service.update_subscription(subscription_id, data)
+    if not subscription:
+        raise HTTPException(status_code=404, detail="Subscription not found")
+    return subscription
+
+
 @router.get("/subscriptions", response_model=List[AlertSubscriptionResponse])
 async def list_subscriptions(
     is_active: bool = True,
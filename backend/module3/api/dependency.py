@@ -42,24 +42,24 @@ async def list_dependency_profiles(
     min_risk_score: Optional[float] = None,
     page: int = Query(1, ge=1),
     page_size: int = Query(20, ge=1, le=100),
+    cursor: Optional[str] = Query(None, description="next_cursor from the previous page (overrides page)"),
+    count: str = Query("exact", pattern="^(exact|estimated|none)$"),
     db: AsyncSession = Depends(get_db)
 ):
     """List regional dependency profiles."""
     service = FoodDependencyService(db)
-    offset = (page - 1) * page_size
-    dependencies, total = await service.list_dependencies(
-        risk_level=risk_level,
-        min_risk_score=min_risk_score,
-        limit=page_size,
-        offset=offset
-    )
-    return PaginatedResponse(
-        items=dependencies,
-        total=total,
-        page=page,
-        page_size=page_size,
-        total_pages=(total + page_size - 1) // page_size
-    )
+    try:
+        result = await service.list_dependencies(
+            risk_level=risk_level,
+            min_risk_score=min_risk_score,
+            limit=page_size,
+            offset=(page - 1) * page_size,
+            cursor=cursor,
+            count=count
+        )
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+    return PaginatedResponse.from_page(result, page, page_size)
 
 
 @router.get("/profiles/{region_id}", response_model=DependencyProfile)
@@ -3,12 +3,13 @@ Distribution Network API Routes
 """
 
 from typing import List, Optional
-from fastapi import APIRouter, Depends, HTTPException, Query
+from fastapi import APIRouter, Depends, HTTPException, Query, Request
 from sqlalchemy.ext.asyncio import AsyncSession
 
 from models.base import get_db
 from models.distribution import CorridorType, DisruptionType, DisruptionSeverity
 from services.distribution_service import DistributionNetworkService
+from services.google_maps_service import maps_cache
 from schemas.distribution import (
     CorridorCreate, CorridorUpdate, CorridorResponse,
     DistributionCenterCreate, DistributionCenterUpdate, DistributionCenterResponse,
@@ -23,6 +24,7 @@ from schemas.google_maps import (
     SmartRouteOptimizationRequest,
 )
 from schemas.common import PaginatedResponse
+from api.streaming import stream_query, negotiate_format, StreamFormatQuery
 
 router = APIRouter()
 
@@ -47,25 +49,25 @@ async def list_corridors(
     is_active: bool = True,
     page: int = Query(1, ge=1),
     page_size: int = Query(20, ge=1, le=100),
+    cursor: Optional[str] = Query(None, description="next_cursor from the previous page (overrides page)"),
+    count: str = Query("exact", pattern="^(exact|estimated|none)$"),
     db: AsyncSession = Depends(get_db)
 ):
     """List transportation corridors."""
     service = DistributionNetworkService(db)
-    offset = (page - 1) * page_size
-    corridors, total = await service.list_corridors(
-        corridor_type=corridor_type,
-        region_id=region_id,
-        is_active=is_active,
-        limit=page_size,
-        offset=offset
-    )
-    return PaginatedResponse(
-        items=corridors,
-        total=total,
-        page=page,
-        page_size=page_size,
-        total_pages=(total + page_size - 1) // page_size
-    )
+    try:
+        result = await service.list_corridors(
+            corridor_type=corridor_type,
+            region_id=region_id,
+            is_active=is_active,
+            limit=page_size,
+            offset=(page - 1) * page_size,
+            cursor=cursor,
+            count=count
+        )
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+    return PaginatedResponse.from_page(result, page, page_size)
 
 
 @router.get("/corridors/{corridor_id}", response_model=CorridorResponse)
@@ -115,25 +117,63 @@ async def list_distribution_centers(
     is_active: bool = True,
     page: int = Query(1, ge=1),
     page_size: int = Query(20, ge=1, le=100),
+    cursor: Optional[str] = Query(None, description="next_cursor from the previous page (overrides page)"),
+    count: str = Query("exact", pattern="^(exact|estimated|none)$"),
     db: AsyncSession = Depends(get_db)
 ):
     """List distribution centers."""
     service = DistributionNetworkService(db)
-    offset = (page - 1) * page_size
-    centers, total = await service.list_distribution_centers(
-        region_id=region_id,
-        operational_status=operational_status,
-        is_active=is_active,
-        limit=page_size,
-        offset=offset
+    try:
+        result = await service.list_distribution_centers(
+            region_id=region_id,
+            operational_status=operational_status,
+            is_active=is_active,
+            limit=page_size,
+            offset=(page - 1) * page_size,
+            cursor=cursor,
+            count=count
+        )
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+    return PaginatedResponse.from_page(result, page, page_size)
+
+
+@router.get("/centers/nearby")
+async def get_nearby_centers(
+    latitude: float = Query(..., ge=-90, le=90),
+    longitude: float = Query(..., ge=-180, le=180),
+    radius_km: float = Query(50, ge=1, le=500),
+    limit: int = Query(10, ge=1, le=50),
+    db: AsyncSession = Depends(get_db)
+):
+    """Find distribution centers near a location."""
+    service = DistributionNetworkService(db)
+    centers = await service.get_centers_near_location(
+        latitude=latitude,
+        longitude=longitude,
+        radius_km=radius_km,
+        limit=limit
     )
-    return PaginatedResponse(
-        items=centers,
-        total=total,
-        page=page,
-        page_size=page_size,
-        total_pages=(total + page_size - 1) // page_size
+    return centers
+
+
+@router.get("/centers/nearest")
+async def get_nearest_centers(
+    latitude: float = Query(..., ge=-90, le=90),
+    longitude: float = Query(..., ge=-180, le=180),
+    k: int = Query(5, ge=1, le=50),
+    max_distance_km: Optional[float] = Query(None, ge=1),
+    db: AsyncSession = Depends(get_db)
+):
+    """Find the k nearest distribution centers to a location."""
+    service = DistributionNetworkService(db)
+    centers = await service.get_nearest_centers(
+        latitude=latitude,
+        longitude=longitude,
+        k=k,
+        max_distance_km=max_distance_km
     )
+    return centers
 
 
 @router.get("/centers/{center_id}", response_model=DistributionCenterResponse)
@@ -163,25 +203,6 @@ async def update_distribution_center(
     return center
 
 
-@router.get("/centers/nearby")
-async def get_nearby_centers(
-    latitude: float = Query(..., ge=-90, le=90),
-    longitude: float = Query(..., ge=-180, le=180),
-    radius_km: float = Query(50, ge=1, le=500),
-    limit: int = Query(10, ge=1, le=50),
-    db: AsyncSession = Depends(get_db)
-):
-    """Find distribution centers near a location."""
-    service = DistributionNetworkService(db)
-    centers = await service.get_centers_near_location(
-        latitude=latitude,
-        longitude=longitude,
-        radius_km=radius_km,
-        limit=limit
-    )
-    return centers
-
-
 # ==================== Transport Routes ====================
 
 @router.post("/routes", response_model=RouteResponse)
@@ -197,23 +218,23 @@ async def create_route(
 
 @router.get("/routes", response_model=List[RouteResponse])
 async def list_routes(
+    request: Request,
     origin_region_id: Optional[int] = None,
     destination_region_id: Optional[int] = None,
     corridor_id: Optional[int] = None,
     cold_chain_capable: Optional[bool] = None,
     is_active: bool = True,
-    db: AsyncSession = Depends(get_db)
+    format: StreamFormatQuery = None
 ):
-    """List transport routes."""
-    service = DistributionNetworkService(db)
-    routes = await service.list_routes(
+    """List transport routes (streamed; see api/streaming.py)."""
+    query = DistributionNetworkService.list_routes_query(
         origin_region_id=origin_region_id,
         destination_region_id=destination_region_id,
         corridor_id=corridor_id,
         cold_chain_capable=cold_chain_capable,
         is_active=is_active
     )
-    return routes
+    return stream_query(query, RouteResponse, negotiate_format(request, format))
 
 
 @router.get("/routes/{route_id}", response_model=RouteResponse)
@@ -271,6 +292,12 @@ async def optimize_route_smart(
         raise HTTPException(status_code=400, detail=str(e))
 
 
+@router.get("/routes/maps-cache/stats")
+async def get_maps_cache_stats():
+    """Hit/miss counters for the Google Maps response cache."""
+    return maps_cache.stats()
+
+
 # ==================== Route Disruptions ====================
 
 @router.post("/disruptions", response_model=DisruptionResponse)
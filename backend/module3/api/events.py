@@ -0,0 +1,129 @@
+"""
+Live Events API Routes (Server-Sent Events)
+"""
+
+import asyncio
+import json
+from typing import AsyncIterator, List, Optional
+
+from fastapi import APIRouter, HTTPException, Query, Request
+from fastapi.responses import StreamingResponse
+
+from models.base import AsyncSessionLocal
+from models.alerts import AlertSubscription, AlertLevel, AlertType
+from services.event_bus import (
+    event_bus, EventFilter,
+    ALERT_CREATED, ALERT_UPDATED, ALERT_ESCALATED, ALERT_RESOLVED,
+    DISRUPTION_CREATED, DISRUPTION_RESOLVED,
+    FIRE_STEP_COMPLETED, FIRE_COMPLETED, FIRE_FAILED
+)
+from services.subscription_index import SubscriptionEntry, DEFAULT_MINIMUM_ALERT_LEVEL
+from config import get_settings
+
+router = APIRouter()
+settings = get_settings()
+
+EVENT_TYPES = (
+    ALERT_CREATED, ALERT_UPDATED, ALERT_ESCALATED, ALERT_RESOLVED,
+    DISRUPTION_CREATED, DISRUPTION_RESOLVED,
+    FIRE_STEP_COMPLETED, FIRE_COMPLETED, FIRE_FAILED,
+)
+
+
+def _frozen(values: Optional[list]) -> Optional[frozenset]:
+    return frozenset(values) if values else None
+
+
+async def _subscription_filter(subscription_id: int) -> EventFilter:
+    # Short-lived session: the stream itself must not hold a DB connection
+    async with AsyncSessionLocal() as session:
+        sub = await session.get(AlertSubscription, subscription_id)
+    if not sub:
+        raise HTTPException(status_code=404, detail="Subscription not found")
+    # Same semantics as notification matching, including the default level
+    entry = SubscriptionEntry.from_model(sub)
+    return EventFilter(
+        region_ids=entry.region_ids,
+        category_ids=entry.category_ids,
+        alert_types=entry.alert_types,
+        minimum_alert_level=(sub.minimum_alert_level or DEFAULT_MINIMUM_ALERT_LEVEL).value,
+    )
+
+
+async def _sse(request: Request, event_filter: EventFilter) -> AsyncIterator[str]:
+    # Subscribe inside the body so a client that disconnects before the
+    # first chunk never leaves a subscriber behind
+    subscriber = event_bus.subscribe(event_filter)
+    try:
+        yield "retry: 5000\n\n"
+        while True:
+            try:
+                event = await asyncio.wait_for(
+                    subscriber.queue.get(),
+                    timeout=settings.event_stream_heartbeat_seconds
+                )
+            except asyncio.TimeoutError:
+                if await request.is_disconnected():
+                    break
+                yield ": keep-alive\n\n"
+                continue
+            yield (
+                f"id: {event.get('id', '')}\n"
+                f"event: {event['type']}\n"
+                f"data: {json.dumps(event, default=str)}\n\n"
+            )
+    finally:
+        event_bus.unsubscribe(subscriber)
+
+
+@router.get("/stream")
+async def stream_events(
+    request: Request,
+    event_types: Optional[List[str]] = Query(None, description=f"Any of {', '.join(EVENT_TYPES)}"),
+    region_ids: Optional[List[int]] = Query(None),
+    category_ids: Optional[List[int]] = Query(None),
+    alert_types: Optional[List[AlertType]] = Query(None),
+    minimum_alert_level: Optional[AlertLevel] = None,
+    subscription_id: Optional[int] = Query(None, description="Use an alert subscription's filters"),
+):
+    """
+    Stream alert and disruption events as Server-Sent Events.
+
+    Filters follow alert-subscription semantics (omitted = any). Passing
+    subscription_id uses that subscription's region/category/type/level
+    filters instead of the individual parameters.
+    """
+    if event_types:
+        unknown = set(event_types) - set(EVENT_TYPES)
+        if unknown:
+            raise HTTPException(status_code=400, detail=f"Unknown event types: {sorted(unknown)}")
+
+    if subscription_id is not None:
+        base = await _subscription_filter(subscription_id)
+        event_filter = EventFilter(
+            event_types=_frozen(event_types),
+            region_ids=base.region_ids,
+            category_ids=base.category_ids,
+            alert_types=base.alert_types,
+            minimum_alert_level=base.minimum_alert_level,
+        )
+    else:
+        event_filter = EventFilter(
+            event_types=_frozen(event_types),
+            region_ids=_frozen(region_ids),
+            category_ids=_frozen(category_ids),
+            alert_types=_frozen([t.value for t in alert_types or []]),
+            minimum_alert_level=minimum_alert_level.value if minimum_alert_level else None,
+        )
+
+    return StreamingResponse(
+        _sse(request, event_filter),
+        media_type="text/event-stream",
+        headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"},
+    )
+
+
+@router.get("/stats")
+async def get_event_stream_stats():
+    """Connected stream clients on this worker and Redis fan-out status."""
+    return event_bus.stats()
@@ -2,22 +2,28 @@
 Food Inventory API Routes
 """
 
-from datetime import datetime
+from datetime import datetime, timedelta
 from typing import List, Optional
-from fastapi import APIRouter, Depends, HTTPException, Query
+from fastapi import APIRouter, Depends, HTTPException, Query, Request
 from sqlalchemy.ext.asyncio import AsyncSession
 from sqlalchemy import select, func
 
 from models.base import get_db
-from models.inventory import FoodInventory, FoodCategory, WarehouseStock, ConsumptionPattern
+from models.inventory import (
+    FoodInventory, CurrentInventory, FoodCategory, WarehouseStock, ConsumptionPattern
+)
+from services.inventory_snapshot import snapshot_row, upsert_current_inventory
+from services.inventory_ingest import InventoryIngestService
 from schemas.inventory import (
     FoodCategoryCreate, FoodCategoryResponse,
     InventoryCreate, InventoryUpdate, InventoryResponse,
     WarehouseStockCreate, WarehouseStockUpdate, WarehouseStockResponse,
     ConsumptionPatternCreate, ConsumptionPatternResponse,
-    InventorySummary, InventoryByCategory
+    InventorySummary, InventoryByCategory,
+    InventoryBulkIngestResponse
 )
 from schemas.common import PaginatedResponse
+from api.streaming import stream_query, negotiate_format, StreamFormatQuery
 
 router = APIRouter()
 
@@ -96,27 +102,65 @@ async def record_inventory(
     db.add(inventory)
     await db.flush()
     await db.refresh(inventory)
+    await upsert_current_inventory(db, [snapshot_row(inventory)])
     return inventory
 
 
+@router.post("/bulk", response_model=InventoryBulkIngestResponse)
+async def bulk_ingest_inventory(
+    request: Request,
+    format: Optional[str] = Query(
+        None, description="ndjson or csv; defaults from Content-Type"
+    ),
+    db: AsyncSession = Depends(get_db)
+):
+    """
+    Stream a batch of inventory readings as NDJSON or CSV (with header).
+
+    Rows are validated and inserted in chunks as the body arrives; invalid
+    rows are reported by line number and skipped. Quoted CSV fields may
+    contain newlines; such rows are reported by their first line.
+    """
+    if format is None:
+        content_type = request.headers.get("content-type", "")
+        format = "csv" if "csv" in content_type else "ndjson"
+
+    service = InventoryIngestService(db)
+    try:
+        return await service.ingest(request.stream(), format.lower())
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+
+
 @router.get("/region/{region_id}", response_model=List[InventoryResponse])
 async def get_region_inventory(
+    request: Request,
     region_id: int,
     category_id: Optional[int] = None,
-    db: AsyncSession = Depends(get_db)
+    days_back: int = Query(30, ge=1, le=3650),
+    start_date: Optional[datetime] = None,
+    end_date: Optional[datetime] = None,
+    format: StreamFormatQuery = None
 ):
-    """Get current inventory for a region."""
+    """
+    Get inventory history for a region (last ``days_back`` days unless a
+    range is given). Streamed; see api/streaming.py.
+    """
+    # Bounded on recorded_at so only the matching monthly partitions are scanned
+    if start_date is None:
+        start_date = (end_date or datetime.utcnow()) - timedelta(days=days_back)
     query = select(FoodInventory).where(
-        FoodInventory.region_id == region_id
+        FoodInventory.region_id == region_id,
+        FoodInventory.recorded_at >= start_date
     )
+    if end_date is not None:
+        query = query.where(FoodInventory.recorded_at <= end_date)
 
     if category_id:
         query = query.where(FoodInventory.category_id == category_id)
 
     query = query.order_by(FoodInventory.recorded_at.desc())
-
-    result = await db.execute(query)
-    return list(result.scalars().all())
+    return stream_query(query, InventoryResponse, negotiate_format(request, format))
 
 
 @router.get("/region/{region_id}/summary", response_model=InventorySummary)
@@ -125,19 +169,11 @@ async def get_inventory_summary(
     db: AsyncSession = Depends(get_db)
 ):
     """Get inventory summary for a region."""
-    # Get latest inventory per category
+    # Latest inventory per category from the snapshot table
     result = await db.execute(
-        select(FoodInventory)
-        .where(FoodInventory.region_id == region_id)
-        .order_by(FoodInventory.recorded_at.desc())
+        select(CurrentInventory).where(CurrentInventory.region_id == region_id)
     )
-    inventories = result.scalars().all()
-
-    # Group by category (keep latest)
-    by_category = {}
-    for inv in inventories:
-        if inv.category_id not in by_category:
-            by_category[inv.category_id] = inv
+    by_category = {inv.category_id: inv for inv in result.scalars().all()}
 
     total_tonnes = sum(inv.quantity_tonnes for inv in by_category.values())
     avg_days = (
@@ -195,6 +231,7 @@ async def update_inventory(
 
     await db.flush()
     await db.refresh(inventory)
+    await upsert_current_inventory(db, [snapshot_row(inventory)])
     return inventory
 
 
@@ -218,11 +255,12 @@ async def record_warehouse_stock(
 
 @router.get("/warehouse-stocks/{center_id}", response_model=List[WarehouseStockResponse])
 async def get_warehouse_stocks(
+    request: Request,
     center_id: int,
     category_id: Optional[int] = None,
-    db: AsyncSession = Depends(get_db)
+    format: StreamFormatQuery = None
 ):
-    """Get stock levels for a distribution center."""
+    """Get stock levels for a distribution center (streamed)."""
     query = select(WarehouseStock).where(
         WarehouseStock.distribution_center_id == center_id
     )
@@ -231,9 +269,7 @@ async def get_warehouse_stocks(
         query = query.where(WarehouseStock.category_id == category_id)
 
     query = query.order_by(WarehouseStock.recorded_at.desc())
-
-    result = await db.execute(query)
-    return list(result.scalars().all())
+    return stream_query(query, WarehouseStockResponse, negotiate_format(request, format))
 
 
 @router.patch("/warehouse-stocks/{stock_id}", response_model=WarehouseStockResponse)
@@ -276,12 +312,13 @@ async def record_consumption(
 
 @router.get("/consumption/{region_id}", response_model=List[ConsumptionPatternResponse])
 async def get_consumption_patterns(
+    request: Request,
     region_id: int,
     category_id: Optional[int] = None,
     period_type: Optional[str] = None,
-    db: AsyncSession = Depends(get_db)
+    format: StreamFormatQuery = None
 ):
-    """Get consumption patterns for a region."""
+    """Get consumption patterns for a region (streamed)."""
     query = select(ConsumptionPattern).where(
         ConsumptionPattern.region_id == region_id
     )
@@ -292,9 +329,7 @@ async def get_consumption_patterns(
         query = query.where(ConsumptionPattern.period_type == period_type)
 
     query = query.order_by(ConsumptionPattern.period_start.desc())
-
-    result = await db.execute(query)
-    return list(result.scalars().all())
+    return stream_query(query, ConsumptionPatternResponse, negotiate_format(request, format))
 
 
 @router.get("/consumption/{region_id}/anomalies")
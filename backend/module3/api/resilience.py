@@ -43,26 +43,26 @@ async def list_urban_ag_sites(
     is_active: bool = True,
     page: int = Query(1, ge=1),
     page_size: int = Query(20, ge=1, le=100),
+    cursor: Optional[str] = Query(None, description="next_cursor from the previous page (overrides page)"),
+    count: str = Query("exact", pattern="^(exact|estimated|none)$"),
     db: AsyncSession = Depends(get_db)
 ):
     """List urban agriculture sites."""
     service = AgriculturalResilienceService(db)
-    offset = (page - 1) * page_size
-    sites, total = await service.list_urban_ag_sites(
-        region_id=region_id,
-        site_type=site_type,
-        status=status,
-        is_active=is_active,
-        limit=page_size,
-        offset=offset
-    )
-    return PaginatedResponse(
-        items=sites,
-        total=total,
-        page=page,
-        page_size=page_size,
-        total_pages=(total + page_size - 1) // page_size
-    )
+    try:
+        result = await service.list_urban_ag_sites(
+            region_id=region_id,
+            site_type=site_type,
+            status=status,
+            is_active=is_active,
+            limit=page_size,
+            offset=(page - 1) * page_size,
+            cursor=cursor,
+            count=count
+        )
+    except ValueError as e:
+        raise HTTPException(status_code=400, detail=str(e))
+    return PaginatedResponse.from_page(result, page, page_size)
 
 
 @router.get("/urban-agriculture/{site_id}", response_model=UrbanAgricultureSiteResponse)
@@ -0,0 +1,85 @@
+"""
+Streaming list responses.
+
+Unbounded history endpoints stream their rows instead of materializing
+the whole result: the query runs through a server-side cursor
+(``AsyncSession.stream`` with ``yield_per``) and each chunk of rows is
+serialized and written before the next one is fetched, so memory stays
+flat regardless of how much history matches.
+
+Two wire formats:
+- ``json`` (default): a single JSON array, same shape as before;
+- ``ndjson``: one JSON object per line (``application/x-ndjson``).
+"""
+
+import logging
+from typing import Annotated, AsyncIterator, Literal, Optional, Type
+
+from fastapi import Query, Request
+from fastapi.responses import StreamingResponse
+from pydantic import BaseModel
+from sqlalchemy import Select
+
+from models.base import AsyncSessionLocal
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+StreamFormat = Literal["json", "ndjson"]
+
+# Shared ?format= parameter of every streamed list endpoint
+StreamFormatQuery = Annotated[
+    Optional[StreamFormat],
+    Query(description="json array (default) or ndjson"),
+]
+
+
+def negotiate_format(request: Request, fmt: Optional[str]) -> str:
+    """Explicit ?format= wins, else NDJSON if the client asks for it."""
+    if fmt:
+        return fmt
+    accept = request.headers.get("accept", "")
+    return "ndjson" if "application/x-ndjson" in accept else "json"
+
+
+async def _stream_rows(
+    query: Select,
+    schema: Type[BaseModel],
+    fmt: str
+) -> AsyncIterator[bytes]:
+    # Own session: the request's get_db session may be closed before the
+    # body has been sent
+    first = True
+    try:
+        async with AsyncSessionLocal() as session:
+            result = await session.stream(
+                query.execution_options(yield_per=settings.stream_chunk_rows)
+            )
+            if fmt == "json":
+                yield b"["
+            async for rows in result.scalars().partitions():
+                lines = [schema.model_validate(row).model_dump_json() for row in rows]
+                if fmt == "ndjson":
+                    yield ("\n".join(lines) + "\n").encode()
+                else:
+                    yield (("" if first else ",") + ",".join(lines)).encode()
+                first = False
+                # Rows are serialized; let the identity map drop them
+                session.expunge_all()
+            if fmt == "json":
+                yield b"]"
+    except Exception:
+        # Headers are already sent; the truncated body signals the failure
+        logger.exception("Streaming response aborted")
+        raise
+
+
+def stream_query(
+    query: Select,
+    schema: Type[BaseModel],
+    fmt: str = "json"
+) -> StreamingResponse:
+    """StreamingResponse that serializes ``query`` rows with ``schema``."""
+    media_type = "application/x-ndjson" if fmt == "ndjson" else "application/json"
+    return StreamingResponse(_stream_rows(query, schema, fmt), media_type=media_type)
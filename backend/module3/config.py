@@ -34,6 +34,8 @@ class Settings(BaseSettings):
     # Redis
     redis_url: str = "redis://localhost:6379/3"
     cache_ttl: int = 3600  # 1 hour default cache TTL
+    maps_cache_local_entries: int = 4096  # in-process LRU in front of Redis
+    maps_cache_coord_precision: int = 4  # decimals in cache keys (~11 m)
 
     # External APIs
     weather_api_key: Optional[str] = None
@@ -41,11 +43,22 @@ class Settings(BaseSettings):
 
     google_maps_api_key: Optional[str] = None
     google_maps_base_url: str = "https://maps.googleapis.com/maps/api"
+    google_maps_requests_per_second: float = 40.0  # token bucket refill; <= 0 disables
+    google_maps_burst: int = 10
 
     satellite_api_key: Optional[str] = None
     satellite_api_url: str = "https://api.sentinel-hub.com"
 
     external_api_timeout_seconds: int = 30
+    external_api_http2: bool = True
+    external_api_max_connections: int = 20  # per upstream host
+    external_api_max_keepalive_connections: int = 10
+    external_api_keepalive_expiry_seconds: float = 30.0
+    external_api_max_concurrency: int = 10  # in-flight requests per upstream host
+    webhook_timeout_seconds: int = 10  # subscriber webhooks use their own client
+    webhook_max_connections: int = 50  # across all webhook hosts
+    webhook_max_keepalive_connections: int = 20
+    webhook_max_concurrency: int = 20  # in-flight webhook deliveries
 
     # Alert Thresholds
     shortage_warning_days: int = 30  # Yellow alert
@@ -59,6 +72,48 @@ class Settings(BaseSettings):
     # Distribution Optimization
     max_distribution_centers: int = 100
     max_route_alternatives: int = 5
+    max_route_hops: int = 6  # longest multi-leg path the route planner returns
+    spatial_index_refresh_seconds: int = 300  # full reload of in-process center index
+    routing_graph_refresh_seconds: int = 300  # full reload of in-process routing graph
+    route_generation_concurrency: int = 8  # concurrent Directions calls in auto_generate_routes
+
+    # Fire Disaster Pipeline
+    fire_scenario_max_concurrency: int = 4  # pipelines run at once per app worker
+    fire_scenario_poll_seconds: float = 1.0
+    fire_scenario_stale_seconds: int = 120  # running jobs without a heartbeat are failed
+    fire_displacement_decay_km: float = 150.0  # distance at which a receiver's pull drops to 1/e
+    fire_displacement_max_receivers: int = 10  # receiving regions per displaced zone
+
+    # Alert Notifications
+    subscription_index_refresh_seconds: int = 300  # full reload of in-process subscription index
+    alert_dashboard_cache_ttl_seconds: int = 60  # upper bound on staleness; writes invalidate
+    event_stream_queue_size: int = 1000  # buffered events per SSE client before dropping oldest
+    event_stream_heartbeat_seconds: int = 15
+    notification_transport: str = "log"  # "log" only logs deliveries; "live" uses SMTP/webhooks
+    smtp_host: str = "localhost"  # e.g. a local MailHog/aiosmtpd sink in development
+    smtp_port: int = 1025
+    smtp_sender: str = "alerts@sentinel-health.local"
+    notification_dispatch_batch_size: int = 200  # outbox rows claimed per dispatcher pass
+    notification_dispatch_poll_seconds: float = 2.0
+    notification_claim_timeout_seconds: int = 300  # reclaim rows stuck in "sending"
+    notification_max_attempts: int = 8
+    notification_retry_base_seconds: int = 30  # doubled per attempt
+    notification_retry_max_seconds: int = 3600
+    notification_email_per_second: float = 10.0  # per-channel token buckets
+    notification_sms_per_second: float = 1.0
+    notification_webhook_per_second: float = 20.0
+    notification_outbox_retention_days: int = 7  # sent/dead outbox rows kept; 0 keeps all
+
+    # Bulk Ingestion
+    bulk_ingest_chunk_size: int = 5000  # rows per multi-row INSERT
+    bulk_ingest_max_errors: int = 1000  # per-row errors returned in the response
+    stream_chunk_rows: int = 500  # rows fetched per server-side cursor round trip in streamed lists
+
+    # Time-Series Partitioning (food_inventory, weather_data, crop_health_indicators)
+    partition_months_back: int = 1  # monthly partitions kept pre-created behind now
+    partition_months_ahead: int = 3  # and ahead of now
+    raw_history_retention_months: int = 13  # older raw rows are rolled up daily; 0 keeps all
+    partition_maintenance_interval_hours: int = 24
 
     # Food Categories
     staple_grains: list = ["rice", "wheat", "corn", "millet", "sorghum"]
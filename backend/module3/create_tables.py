@@ -3,8 +3,12 @@ Create database tables
 """
 import asyncio
 import sys
-from sqlalchemy.ext.asyncio import create_async_engine
+from sqlalchemy.ext.asyncio import create_async_engine, AsyncSession
 from models.base import Base
+from services.inventory_snapshot import rebuild_current_inventory
+from services.partitioning import (
+    PARTITIONED_TABLES, convert_legacy_table, copy_legacy_rows, ensure_partitions
+)
 from config import get_settings
 
 async def create_tables():
@@ -19,9 +23,28 @@ async def create_tables():
     
     try:
         print("Creating tables...")
+        # Move unpartitioned history tables aside so create_all can
+        # recreate them as partitioned tables
+        async with engine.begin() as conn:
+            for spec in PARTITIONED_TABLES:
+                await convert_legacy_table(conn, spec.name)
+
         async with engine.begin() as conn:
             await conn.run_sync(Base.metadata.create_all)
+            await ensure_partitions(conn)
         print("✅ All tables created successfully!")
+
+        async with engine.begin() as conn:
+            for spec in PARTITIONED_TABLES:
+                copied = await copy_legacy_rows(conn, spec.name)
+                if copied:
+                    print(f"✅ Copied {copied} rows into partitioned {spec.name}")
+
+        # Backfill the latest-inventory snapshot from existing history
+        async with AsyncSession(engine) as session:
+            rows = await rebuild_current_inventory(session)
+            await session.commit()
+        print(f"✅ Current inventory snapshot rebuilt ({rows} rows)")
         
     except Exception as e:
         print(f"❌ Error creating tables: {e}")
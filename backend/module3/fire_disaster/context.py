@@ -0,0 +1,66 @@
+"""
+Scenario context for the fire disaster pipeline.
+
+Reference data every step reads — active regions, the latest inventory
+reading per region and active distribution center counts per region — is
+loaded once per run in three queries and passed to the steps, so no step
+issues per-region lookups.
+"""
+
+from dataclasses import dataclass, field
+from typing import Any, Dict
+
+from sqlalchemy import select, func
+from sqlalchemy.ext.asyncio import AsyncSession
+
+from models.agricultural import Region
+from models.distribution import DistributionCenter
+from models.inventory import CurrentInventory
+
+
+@dataclass
+class ScenarioContext:
+    """Per-run snapshot of the reference data the pipeline steps share."""
+    regions: Dict[int, Region] = field(default_factory=dict)  # active regions by id
+    # region_id -> row with quantity_tonnes, days_of_supply, consumption_rate_tonnes_per_day
+    latest_inventory: Dict[int, Any] = field(default_factory=dict)
+    center_counts: Dict[int, int] = field(default_factory=dict)  # active centers per region
+
+    @classmethod
+    async def load(cls, db: AsyncSession) -> "ScenarioContext":
+        regions_result = await db.execute(
+            select(Region).where(Region.is_active == True)
+        )
+        regions = {r.id: r for r in regions_result.scalars().all()}
+
+        # Most recent reading per region across categories
+        ranked = select(
+            CurrentInventory.region_id,
+            CurrentInventory.quantity_tonnes,
+            CurrentInventory.days_of_supply,
+            CurrentInventory.consumption_rate_tonnes_per_day,
+            func.row_number().over(
+                partition_by=CurrentInventory.region_id,
+                order_by=(
+                    CurrentInventory.recorded_at.desc(),
+                    CurrentInventory.inventory_id.desc()
+                )
+            ).label("rn")
+        ).subquery()
+        inventory_result = await db.execute(
+            select(ranked).where(ranked.c.rn == 1)
+        )
+        latest_inventory = {row.region_id: row for row in inventory_result}
+
+        counts_result = await db.execute(
+            select(DistributionCenter.region_id, func.count())
+            .where(DistributionCenter.is_active == True)
+            .group_by(DistributionCenter.region_id)
+        )
+        center_counts = {region_id: count for region_id, count in counts_result.all()}
+
+        return cls(
+            regions=regions,
+            latest_inventory=latest_inventory,
+            center_counts=center_counts,
+        )
@@ -0,0 +1,115 @@
+"""
+Pipeline DAG runner.
+
+Each step declares the steps it depends on and receives their results as
+positional arguments, in ``depends_on`` order. A step starts as soon as
+all of its dependencies have finished, so independent branches run
+concurrently. If any step fails the remaining steps are cancelled and
+the error is raised to the caller.
+
+``on_step_done`` is awaited after each step with its name, result and
+timing; job mode uses it to persist progress as steps finish.
+"""
+
+import asyncio
+import logging
+import time
+from dataclasses import dataclass
+from typing import Any, Awaitable, Callable, Dict, List, Optional, Sequence, Tuple
+
+logger = logging.getLogger(__name__)
+
+
+@dataclass(frozen=True)
+class PipelineStep:
+    """One node of the pipeline DAG."""
+    name: str
+    run: Callable[..., Awaitable[Any]]
+    depends_on: Tuple[str, ...] = ()
+    # Short log line for the step's result, e.g. "4 disruptions"
+    summarize: Optional[Callable[[Any], str]] = None
+
+
+@dataclass
+class StepTiming:
+    """Offset from pipeline start and wall time of one step, in seconds."""
+    step: str
+    started_seconds: float
+    duration_seconds: float
+
+
+def topological_order(steps: Sequence[PipelineStep]) -> List[PipelineStep]:
+    """Steps ordered so every dependency precedes its dependents."""
+    by_name = {s.name: s for s in steps}
+    if len(by_name) != len(steps):
+        raise ValueError("Duplicate pipeline step names")
+
+    ordered: List[PipelineStep] = []
+    state: Dict[str, int] = {}  # 1 = visiting, 2 = done
+
+    def visit(step: PipelineStep) -> None:
+        if state.get(step.name) == 2:
+            return
+        if state.get(step.name) == 1:
+            raise ValueError(f"Pipeline has a cycle through '{step.name}'")
+        state[step.name] = 1
+        for dep in step.depends_on:
+            if dep not in by_name:
+                raise ValueError(f"Step '{step.name}' depends on unknown step '{dep}'")
+            visit(by_name[dep])
+        state[step.name] = 2
+        ordered.append(step)
+
+    for step in steps:
+        visit(step)
+    return ordered
+
+
+async def run_dag(
+    steps: Sequence[PipelineStep],
+    label: str = "pipeline",
+    on_step_done: Optional[Callable[[str, Any, StepTiming], Awaitable[None]]] = None
+) -> Tuple[Dict[str, Any], List[StepTiming]]:
+    """
+    Run ``steps`` with maximum concurrency allowed by their dependencies.
+
+    Returns each step's result by name and the per-step timings, in the
+    order the steps finished.
+    """
+    origin = time.perf_counter()
+    results: Dict[str, Any] = {}
+    timings: List[StepTiming] = []
+    tasks: Dict[str, asyncio.Task] = {}
+
+    async def execute(step: PipelineStep) -> Any:
+        args = [await tasks[dep] for dep in step.depends_on]
+        started = time.perf_counter()
+        result = await step.run(*args)
+        finished = time.perf_counter()
+
+        timing = StepTiming(
+            step=step.name,
+            started_seconds=round(started - origin, 3),
+            duration_seconds=round(finished - started, 3),
+        )
+        results[step.name] = result
+        timings.append(timing)
+        detail = f" — {step.summarize(result)}" if step.summarize else ""
+        logger.info(f"[{label}] {step.name} done in {finished - started:.2f}s{detail}")
+        if on_step_done is not None:
+            await on_step_done(step.name, result, timing)
+        return result
+
+    # Dependencies are scheduled first so execute() always finds their task
+    for step in topological_order(steps):
+        tasks[step.name] = asyncio.create_task(execute(step), name=f"{label}:{step.name}")
+
+    try:
+        await asyncio.gather(*tasks.values())
+    except BaseException:
+        for task in tasks.values():
+            task.cancel()
+        await asyncio.gather(*tasks.values(), return_exceptions=True)
+        raise
+
+    return results, timings
@@ -0,0 +1,248 @@
+"""
+Fire Disaster Job Runner
+
+Job mode for the pipeline: POST /fire-disaster/jobs stores a queued
+FireScenarioRun and returns immediately. This runner:
+- claims queued runs with FOR UPDATE SKIP LOCKED, so several app workers
+  share one queue without double-claiming;
+- runs at most ``fire_scenario_max_concurrency`` pipelines per worker;
+- writes each step's result to the run as soon as the step finishes and
+  publishes fire.* events on the event bus for SSE clients.
+
+Active runs are heartbeated every poll. A run left ``running`` without a
+heartbeat for ``fire_scenario_stale_seconds`` (its worker died) is marked
+failed rather than retried, because its finished steps have already
+committed their writes.
+"""
+
+import asyncio
+import logging
+from dataclasses import asdict
+from datetime import datetime, timedelta
+from typing import Any, Dict, List, Optional, Tuple
+
+from sqlalchemy import select, update
+from sqlalchemy.ext.asyncio import AsyncSession
+
+from models.base import AsyncSessionLocal, run_after_commit
+from models.fire_scenario import FireScenarioRun
+from services.event_bus import (
+    event_bus, fire_event, FIRE_STEP_COMPLETED, FIRE_COMPLETED, FIRE_FAILED
+)
+from config import get_settings
+
+from .dag import StepTiming
+from .schemas import FireDisasterRequest
+from .service import FireDisasterService, STEP_FIELDS, new_scenario_id
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+TERMINAL_STATUSES = ("completed", "failed")
+
+
+class FireScenarioRunner:
+    """Background executor for queued fire scenario runs."""
+
+    def __init__(self, max_concurrency: int):
+        self.max_concurrency = max_concurrency
+        self._active: Dict[asyncio.Task, int] = {}  # task -> run id
+        self._wake: Optional[asyncio.Event] = None
+        self._loop_task: Optional[asyncio.Task] = None
+
+    # ── submission ───────────────────────────────────────────────────
+
+    async def submit(self, db: AsyncSession, req: FireDisasterRequest) -> FireScenarioRun:
+        """Queue a run; the runner picks it up once the session commits."""
+        run = FireScenarioRun(
+            scenario_id=new_scenario_id(),
+            status="queued",
+            request=req.model_dump(),
+            step_results={},
+            step_timings=[],
+        )
+        db.add(run)
+        await db.flush()
+        await db.refresh(run)
+        run_after_commit(db, self.wake)
+        return run
+
+    def wake(self) -> None:
+        """Skip the rest of the poll interval (new work was queued)."""
+        if self._wake is not None:
+            self._wake.set()
+
+    # ── queue bookkeeping ────────────────────────────────────────────
+
+    async def _claim(self, limit: int) -> List[Tuple[int, str, Dict[str, Any]]]:
+        now = datetime.utcnow()
+        queued = (
+            select(FireScenarioRun.id)
+            .where(FireScenarioRun.status == "queued")
+            .order_by(FireScenarioRun.created_at)
+            .limit(limit)
+            .with_for_update(skip_locked=True)
+        )
+        async with AsyncSessionLocal() as session, session.begin():
+            result = await session.execute(
+                update(FireScenarioRun)
+                .where(FireScenarioRun.id.in_(queued.scalar_subquery()))
+                .values(status="running", started_at=now, heartbeat_at=now)
+                .returning(FireScenarioRun.id, FireScenarioRun.scenario_id, FireScenarioRun.request)
+                .execution_options(synchronize_session=False)
+            )
+            return [tuple(row) for row in result]
+
+    async def _heartbeat(self) -> None:
+        if not self._active:
+            return
+        await self._update_where(
+            FireScenarioRun.id.in_(list(self._active.values())),
+            heartbeat_at=datetime.utcnow(),
+        )
+
+    async def _fail_stale(self) -> None:
+        now = datetime.utcnow()
+        stale = now - timedelta(seconds=settings.fire_scenario_stale_seconds)
+        async with AsyncSessionLocal() as session, session.begin():
+            result = await session.execute(
+                update(FireScenarioRun)
+                .where(
+                    FireScenarioRun.status == "running",
+                    FireScenarioRun.heartbeat_at < stale,
+                )
+                .values(status="failed", error="Worker stopped responding", completed_at=now)
+                .returning(FireScenarioRun.scenario_id)
+                .execution_options(synchronize_session=False)
+            )
+            failed = list(result.scalars().all())
+        for scenario_id in failed:
+            logger.warning(f"[{scenario_id}] Fire scenario run went stale, marked failed")
+            await event_bus.publish(fire_event(FIRE_FAILED, scenario_id, error="Worker stopped responding"))
+
+    @staticmethod
+    async def _update_where(condition: Any, **values: Any) -> None:
+        async with AsyncSessionLocal() as session, session.begin():
+            await session.execute(
+                update(FireScenarioRun)
+                .where(condition)
+                .values(**values)
+                .execution_options(synchronize_session=False)
+            )
+
+    # ── execution ────────────────────────────────────────────────────
+
+    async def _execute(self, run_id: int, scenario_id: str, request: Dict[str, Any]) -> None:
+        step_results: Dict[str, Any] = {}
+        step_timings: List[Dict[str, Any]] = []
+        # Steps finish concurrently; serialize writes so a slower UPDATE
+        # never overwrites a newer snapshot
+        progress_lock = asyncio.Lock()
+
+        async def on_step_done(name: str, result: Any, timing: StepTiming) -> None:
+            async with progress_lock:
+                step_timings.append(asdict(timing))
+                if name not in STEP_FIELDS:
+                    return  # internal step (scenario context): timing only
+                step_results[STEP_FIELDS[name]] = result.model_dump(mode="json")
+                await self._update_where(
+                    FireScenarioRun.id == run_id,
+                    step_results=dict(step_results),
+                    step_timings=list(step_timings),
+                    heartbeat_at=datetime.utcnow(),
+                )
+                completed = len(step_results)
+            await event_bus.publish(fire_event(
+                FIRE_STEP_COMPLETED, scenario_id,
+                step=name,
+                completed_steps=completed,
+                total_steps=len(STEP_FIELDS),
+                duration_seconds=timing.duration_seconds,
+            ))
+
+        try:
+            req = FireDisasterRequest.model_validate(request)
+            response = await FireDisasterService().run_pipeline(
+                req, scenario_id=scenario_id, on_step_done=on_step_done
+            )
+        except asyncio.CancelledError:
+            await self._mark_failed(run_id, scenario_id, "Interrupted by worker shutdown")
+            raise
+        except Exception as e:
+            logger.exception(f"[{scenario_id}] Fire scenario run failed")
+            await self._mark_failed(run_id, scenario_id, f"{type(e).__name__}: {e}")
+            return
+
+        await self._update_where(
+            FireScenarioRun.id == run_id,
+            status="completed",
+            summary=response.summary,
+            completed_at=response.completed_at,
+            heartbeat_at=datetime.utcnow(),
+        )
+        await event_bus.publish(fire_event(FIRE_COMPLETED, scenario_id, summary=response.summary))
+
+    async def _mark_failed(self, run_id: int, scenario_id: str, error: str) -> None:
+        try:
+            await self._update_where(
+                FireScenarioRun.id == run_id,
+                status="failed",
+                error=error[:2000],
+                completed_at=datetime.utcnow(),
+            )
+            await event_bus.publish(fire_event(FIRE_FAILED, scenario_id, error=error))
+        except Exception:
+            logger.exception(f"[{scenario_id}] Could not record fire scenario failure")
+
+    def _start(self, run_id: int, scenario_id: str, request: Dict[str, Any]) -> None:
+        task = asyncio.create_task(
+            self._execute(run_id, scenario_id, request), name=f"fire-job:{scenario_id}"
+        )
+        self._active[task] = run_id
+
+        def _done(t: asyncio.Task) -> None:
+            self._active.pop(t, None)
+            self.wake()  # a slot is free
+
+        task.add_done_callback(_done)
+
+    # ── entry points ─────────────────────────────────────────────────
+
+    async def run_forever(self) -> None:
+        """Claim and run queued scenarios until cancelled."""
+        self._wake = asyncio.Event()
+        while True:
+            self._wake.clear()
+            try:
+                await self._heartbeat()
+                await self._fail_stale()
+                free = self.max_concurrency - len(self._active)
+                if free > 0:
+                    for run_id, scenario_id, request in await self._claim(free):
+                        logger.info(f"[{scenario_id}] Fire scenario run claimed")
+                        self._start(run_id, scenario_id, request)
+            except asyncio.CancelledError:
+                raise
+            except Exception as e:
+                logger.warning(f"Fire scenario runner pass failed: {e}")
+            try:
+                await asyncio.wait_for(self._wake.wait(), timeout=settings.fire_scenario_poll_seconds)
+            except asyncio.TimeoutError:
+                pass
+
+    async def startup(self) -> None:
+        if self._loop_task is None:
+            self._loop_task = asyncio.create_task(self.run_forever())
+
+    async def shutdown(self) -> None:
+        tasks = list(self._active)
+        if self._loop_task is not None:
+            tasks.append(self._loop_task)
+            self._loop_task = None
+        for task in tasks:
+            task.cancel()
+        await asyncio.gather(*tasks, return_exceptions=True)
+
+
+# Process-wide runner started from the app lifespan
+fire_scenario_runner = FireScenarioRunner(max_concurrency=settings.fire_scenario_max_concurrency)
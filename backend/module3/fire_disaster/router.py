@@ -1,17 +1,31 @@
 """
 Fire Disaster API Router
 
-Single endpoint that runs the full automated response pipeline.
+Runs the full automated response pipeline, either inline (/simulate) or
+as a background job with progress polling and SSE (/jobs).
 """
 
-from fastapi import APIRouter, Depends, HTTPException
+import asyncio
+import json
+from typing import Any, AsyncIterator, Dict, List, Optional
+
+from fastapi import APIRouter, Depends, HTTPException, Query, Request
+from fastapi.responses import StreamingResponse
+from sqlalchemy import select
 from sqlalchemy.ext.asyncio import AsyncSession
 
-from models.base import get_db
-from .schemas import FireDisasterRequest, FireDisasterResponse
-from .service import FireDisasterService
+from models.base import get_db, AsyncSessionLocal
+from models.fire_scenario import FireScenarioRun
+from services.event_bus import (
+    event_bus, EventFilter, EventSubscriber, FIRE_COMPLETED, FIRE_FAILED
+)
+from config import get_settings
+from .schemas import FireDisasterRequest, FireDisasterResponse, FireScenarioJob
+from .service import FireDisasterService, STEP_FIELDS
+from .jobs import fire_scenario_runner, TERMINAL_STATUSES
 
 router = APIRouter()
+settings = get_settings()
 
 
 @router.post(
@@ -25,11 +39,9 @@ router = APIRouter()
         "and optimise distribution."
     ),
 )
-async def simulate_fire_disaster(
-    request: FireDisasterRequest,
-    db: AsyncSession = Depends(get_db),
-):
-    service = FireDisasterService(db)
+async def simulate_fire_disaster(request: FireDisasterRequest):
+    # Steps open their own sessions so independent ones can run concurrently
+    service = FireDisasterService()
     try:
         result = await service.run_pipeline(request)
         return result
@@ -37,3 +49,129 @@ async def simulate_fire_disaster(
         raise HTTPException(status_code=400, detail=str(e))
     except Exception as e:
         raise HTTPException(status_code=500, detail=f"Pipeline error: {e}")
+
+
+# ── Job mode ─────────────────────────────────────────────────────────────
+
+def _job_response(run: FireScenarioRun, include_results: bool = True) -> FireScenarioJob:
+    timings = run.step_timings or []
+    return FireScenarioJob(
+        scenario_id=run.scenario_id,
+        status=run.status,
+        request=run.request,
+        submitted_at=run.created_at,
+        started_at=run.started_at,
+        completed_at=run.completed_at,
+        completed_steps=[t["step"] for t in timings if t["step"] in STEP_FIELDS],
+        total_steps=len(STEP_FIELDS),
+        step_results=(run.step_results or {}) if include_results else {},
+        step_timings=timings,
+        summary=run.summary,
+        error=run.error,
+    )
+
+
+async def _get_run(db: AsyncSession, scenario_id: str) -> FireScenarioRun:
+    result = await db.execute(
+        select(FireScenarioRun).where(FireScenarioRun.scenario_id == scenario_id)
+    )
+    run = result.scalar_one_or_none()
+    if not run:
+        raise HTTPException(status_code=404, detail="Fire scenario not found")
+    return run
+
+
+@router.post(
+    "/jobs",
+    response_model=FireScenarioJob,
+    status_code=202,
+    summary="Submit a fire disaster simulation as a background job",
+)
+async def submit_fire_scenario(
+    request: FireDisasterRequest,
+    db: AsyncSession = Depends(get_db),
+):
+    """
+    Queue the pipeline and return its scenario_id immediately.
+
+    Poll GET /jobs/{scenario_id} or stream GET /jobs/{scenario_id}/events
+    for progress; each step's result is available as soon as it finishes.
+    """
+    run = await fire_scenario_runner.submit(db, request)
+    return _job_response(run)
+
+
+@router.get("/jobs", response_model=List[FireScenarioJob])
+async def list_fire_scenarios(
+    status: Optional[str] = Query(None, pattern="^(queued|running|completed|failed)$"),
+    limit: int = Query(50, ge=1, le=200),
+    db: AsyncSession = Depends(get_db),
+):
+    """Recent fire scenario jobs, newest first (without step results)."""
+    query = select(FireScenarioRun)
+    if status:
+        query = query.where(FireScenarioRun.status == status)
+    result = await db.execute(
+        query.order_by(FireScenarioRun.created_at.desc(), FireScenarioRun.id.desc()).limit(limit)
+    )
+    return [_job_response(run, include_results=False) for run in result.scalars().all()]
+
+
+@router.get("/jobs/{scenario_id}", response_model=FireScenarioJob)
+async def get_fire_scenario(scenario_id: str, db: AsyncSession = Depends(get_db)):
+    """Status and the results of every step finished so far."""
+    return _job_response(await _get_run(db, scenario_id))
+
+
+def _sse_message(event_type: str, payload: Dict[str, Any], event_id: str = "") -> str:
+    return f"id: {event_id}\nevent: {event_type}\ndata: {json.dumps(payload, default=str)}\n\n"
+
+
+async def _job_events(
+    request: Request,
+    subscriber: EventSubscriber,
+    snapshot: FireScenarioJob
+) -> AsyncIterator[str]:
+    try:
+        yield "retry: 5000\n\n"
+        yield _sse_message("fire.status", snapshot.model_dump(mode="json"))
+        if snapshot.status in TERMINAL_STATUSES:
+            return
+        while True:
+            try:
+                event = await asyncio.wait_for(
+                    subscriber.queue.get(),
+                    timeout=settings.event_stream_heartbeat_seconds
+                )
+            except asyncio.TimeoutError:
+                if await request.is_disconnected():
+                    break
+                yield ": keep-alive\n\n"
+                continue
+            yield _sse_message(event["type"], event, event.get("id", ""))
+            if event["type"] in (FIRE_COMPLETED, FIRE_FAILED):
+                break
+    finally:
+        event_bus.unsubscribe(subscriber)
+
+
+@router.get("/jobs/{scenario_id}/events")
+async def stream_fire_scenario(scenario_id: str, request: Request):
+    """
+    Server-Sent Events for one job: a fire.status snapshot first, then
+    fire.step_completed per step, ending with fire.completed or fire.failed.
+    """
+    # Subscribe before reading the snapshot so no step can slip between them
+    subscriber = event_bus.subscribe(EventFilter(scenario_id=scenario_id))
+    try:
+        # Short-lived session: the stream itself must not hold a DB connection
+        async with AsyncSessionLocal() as session:
+            snapshot = _job_response(await _get_run(session, scenario_id))
+    except Exception:
+        event_bus.unsubscribe(subscriber)
+        raise
+    return StreamingResponse(
+        _job_events(request, subscriber, snapshot),
+        media_type="text/event-stream",
+        headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"},
+    )
@@ -155,6 +155,13 @@ class OptimizeDistributionResult(BaseSchema):
     plans: List[DistributionPlanSummary]
 
 
+class PipelineStepTiming(BaseSchema):
+    """When a step started (offset from pipeline start) and how long it ran."""
+    step: str
+    started_seconds: float
+    duration_seconds: float
+
+
 # ── Full pipeline response ───────────────────────────────────────────────
 
 class FireDisasterResponse(BaseSchema):
@@ -174,4 +181,24 @@ class FireDisasterResponse(BaseSchema):
     step_7_reroute: RerouteResult
     step_8_distribution: OptimizeDistributionResult
 
+    step_timings: List[PipelineStepTiming] = []
     summary: Dict[str, Any]
+
+
+# ── Job mode ─────────────────────────────────────────────────────────────
+
+class FireScenarioJob(BaseSchema):
+    """A fire simulation submitted in job mode, with progress so far."""
+    scenario_id: str
+    status: str  # queued / running / completed / failed
+    request: FireDisasterRequest
+    submitted_at: datetime
+    started_at: Optional[datetime] = None
+    completed_at: Optional[datetime] = None
+    completed_steps: List[str] = []
+    total_steps: int
+    # Keyed like FireDisasterResponse fields (step_1_weather, ...)
+    step_results: Dict[str, Any] = {}
+    step_timings: List[PipelineStepTiming] = []
+    summary: Optional[Dict[str, Any]] = None
+    error: Optional[str] = None
@@ -10,31 +10,40 @@ Orchestrates the full automated response:
   6. Generate shortage alerts
   7. Reroute — find alternatives around blocked routes
   8. Optimise distribution plans for safe regions
+
+Steps run as a dependency DAG (see fire_disaster/dag.py), each in its
+own session, so independent steps overlap instead of waiting in line.
 """
 
+import asyncio
 import logging
 import uuid
-import math
 from datetime import datetime, timedelta
-from typing import List, Dict, Any, Optional, Tuple
+from typing import List, Dict, Any, Optional, Set, Tuple, Callable, Awaitable
 
 import numpy as np
-from sqlalchemy.ext.asyncio import AsyncSession
-from sqlalchemy import select, func, and_
+from sqlalchemy.ext.asyncio import AsyncSession, async_sessionmaker
+from sqlalchemy import select, insert, update, and_, tuple_
 
 from models.agricultural import Region, WeatherData
 from models.distribution import (
     TransportRoute, RouteDisruption, DistributionCenter,
     DisruptionType, DisruptionSeverity,
 )
-from models.inventory import FoodInventory
 from models.alerts import ShortageAlert, AlertLevel, AlertType, AlertStatus
 from models.distribution_plan import (
     DistributionPlan, PlanStatus, PopulationType,
 )
+from models.base import AsyncSessionLocal, run_after_commit
 
 from services.weather_api_service import WeatherAPIService
 from services.google_maps_service import GoogleMapsService
+from services.geo_math import (
+    haversine_km, bearing_deg, angular_difference_deg, distance_matrix_km,
+)
+from services.route_planner import routing_graph
+from services.event_bus import event_bus, alert_event, disruption_event, ALERT_CREATED, DISRUPTION_CREATED
+from services.shortage_service import dashboard_cache, DASHBOARD_CACHE_KEY
 from config import get_settings
 
 from .schemas import (
@@ -47,11 +56,19 @@ from .schemas import (
     AlertRecord, GenerateAlertsResult,
     RerouteEntry, RerouteResult,
     DistributionPlanSummary, OptimizeDistributionResult,
+    PipelineStepTiming,
 )
+from .context import ScenarioContext
+from .displacement import allocate_displacement, receiver_capacity
+from .dag import PipelineStep, StepTiming, run_dag
 
 logger = logging.getLogger(__name__)
 settings = get_settings()
 
+# Rows per multi-row INSERT (ShortageAlert has ~40 columns; keeps bind
+# parameters under the asyncpg limit)
+FIRE_INSERT_BATCH_SIZE = 500
+
 # Wind-direction → bearing (degrees clockwise from N)
 _WIND_BEARINGS = {
     "N": 0, "NE": 45, "E": 90, "SE": 135,
@@ -59,90 +76,172 @@ _WIND_BEARINGS = {
 }
 
 
-class FireDisasterService:
-    """Orchestrates the end-to-end fire disaster response pipeline."""
-
-    def __init__(self, db: AsyncSession):
-        self.db = db
+# DAG step name -> FireDisasterResponse field
+STEP_FIELDS = {
+    "weather": "step_1_weather",
+    "zones": "step_2_zones",
+    "disruptions": "step_3_disruptions",
+    "displacement": "step_4_displacement",
+    "supply": "step_5_supply",
+    "alerts": "step_6_alerts",
+    "reroute": "step_7_reroute",
+    "distribution": "step_8_distribution",
+}
 
-    # ── public entry point ───────────────────────────────────────────
 
-    async def run_pipeline(self, req: FireDisasterRequest) -> FireDisasterResponse:
-        scenario_id = f"FIRE-{uuid.uuid4().hex[:10].upper()}"
-        started = datetime.utcnow()
-        logger.info(f"[{scenario_id}] Pipeline started — fire at ({req.latitude}, {req.longitude})")
+def new_scenario_id() -> str:
+    return f"FIRE-{uuid.uuid4().hex[:10].upper()}"
 
-        # Step 1
-        weather = await self._step1_weather_check(req)
-        logger.info(f"[{scenario_id}] Step 1 done — {weather.fire_weather_risk} risk")
 
-        # Step 2
-        zones = await self._step2_flag_zones(req, weather)
-        logger.info(f"[{scenario_id}] Step 2 done — {len(zones.affected_zones)} zones affected")
+def pipeline_summary(scenario_id: str, results: Dict[str, Any], duration: float) -> Dict[str, Any]:
+    """Headline numbers for a finished run, keyed by DAG step name."""
+    zones = results["zones"]
+    return {
+        "scenario_id": scenario_id,
+        "fire_weather_risk": results["weather"].fire_weather_risk,
+        "regions_affected": len(zones.affected_zones),
+        "population_in_affected_zones": sum(
+            (z.population or 0) for z in zones.affected_zones
+        ),
+        "total_displaced": results["displacement"].total_displaced,
+        "routes_disrupted": results["disruptions"].disruptions_created,
+        "alerts_raised": results["alerts"].alerts_generated,
+        "alternative_routes": results["reroute"].alternative_routes_created,
+        "distribution_plans": results["distribution"].plans_created,
+        "pipeline_duration_seconds": round(duration, 2),
+    }
 
-        # Step 3
-        disruptions = await self._step3_create_disruptions(scenario_id, zones)
-        logger.info(f"[{scenario_id}] Step 3 done — {disruptions.disruptions_created} disruptions")
 
-        # Step 4
-        displacement = await self._step4_displace_population(req, zones)
-        logger.info(f"[{scenario_id}] Step 4 done — {displacement.total_displaced} people displaced")
+class FireDisasterService:
+    """Orchestrates the end-to-end fire disaster response pipeline."""
 
-        # Step 5
-        supply = await self._step5_recalculate_supply(zones, displacement)
-        logger.info(f"[{scenario_id}] Step 5 done — {supply.regions_updated} regions updated")
+    def __init__(self, session_factory: async_sessionmaker = AsyncSessionLocal):
+        self.session_factory = session_factory
 
-        # Step 6
-        alerts = await self._step6_generate_alerts(scenario_id, zones, supply)
-        logger.info(f"[{scenario_id}] Step 6 done — {alerts.alerts_generated} alerts")
+    # ── public entry point ───────────────────────────────────────────
 
-        # Step 7
-        reroute = await self._step7_reroute(scenario_id, zones)
-        logger.info(f"[{scenario_id}] Step 7 done — {reroute.alternative_routes_created} alt routes")
+    async def run_pipeline(
+        self,
+        req: FireDisasterRequest,
+        scenario_id: Optional[str] = None,
+        on_step_done: Optional[Callable[[str, Any, StepTiming], Awaitable[None]]] = None,
+    ) -> FireDisasterResponse:
+        """
+        Run all eight steps and return the combined response.
+
+        Job mode passes the scenario_id it already handed to the client and
+        an on_step_done hook that persists each step's result.
+        """
+        scenario_id = scenario_id or new_scenario_id()
+        started = datetime.utcnow()
+        logger.info(f"[{scenario_id}] Pipeline started — fire at ({req.latitude}, {req.longitude})")
 
-        # Step 8
-        distribution = await self._step8_optimize_distribution(
-            scenario_id, zones, displacement, supply
+        results, timings = await run_dag(
+            self._pipeline_steps(scenario_id, req),
+            label=scenario_id,
+            on_step_done=on_step_done,
         )
-        logger.info(f"[{scenario_id}] Step 8 done — {distribution.plans_created} plans")
 
         completed = datetime.utcnow()
         duration = (completed - started).total_seconds()
 
-        affected_pop = sum(
-            (z.population or 0) for z in zones.affected_zones
-        )
-
-        summary = {
-            "scenario_id": scenario_id,
-            "fire_weather_risk": weather.fire_weather_risk,
-            "regions_affected": len(zones.affected_zones),
-            "population_in_affected_zones": affected_pop,
-            "total_displaced": displacement.total_displaced,
-            "routes_disrupted": disruptions.disruptions_created,
-            "alerts_raised": alerts.alerts_generated,
-            "alternative_routes": reroute.alternative_routes_created,
-            "distribution_plans": distribution.plans_created,
-            "pipeline_duration_seconds": round(duration, 2),
-        }
-
         return FireDisasterResponse(
             scenario_id=scenario_id,
             fire_location={"latitude": req.latitude, "longitude": req.longitude},
             started_at=started,
             completed_at=completed,
             duration_seconds=round(duration, 2),
-            step_1_weather=weather,
-            step_2_zones=zones,
-            step_3_disruptions=disruptions,
-            step_4_displacement=displacement,
-            step_5_supply=supply,
-            step_6_alerts=alerts,
-            step_7_reroute=reroute,
-            step_8_distribution=distribution,
-            summary=summary,
+            **{STEP_FIELDS[name]: results[name] for name in STEP_FIELDS},
+            step_timings=[PipelineStepTiming.model_validate(t) for t in timings],
+            summary=pipeline_summary(scenario_id, results, duration),
         )
 
+    def _pipeline_steps(self, scenario_id: str, req: FireDisasterRequest) -> List[PipelineStep]:
+        """
+        The pipeline as a dependency DAG.
+
+        Reference data (ScenarioContext) loads alongside the weather call.
+        Once zones are known, disruptions (3) and displacement (4) run side
+        by side; reroute (7) only needs the disrupted routes, and alerts (6)
+        and distribution plans (8) start together once supply (5) is in.
+        """
+        unit = self._in_session
+        return [
+            PipelineStep(
+                "weather",
+                lambda: self._step1_weather_check(req),
+                summarize=lambda r: f"{r.fire_weather_risk} risk",
+            ),
+            PipelineStep(
+                "context",
+                lambda: unit(ScenarioContext.load),
+                summarize=lambda r: f"{len(r.regions)} regions loaded",
+            ),
+            PipelineStep(
+                "zones",
+                lambda weather, ctx: self._step2_flag_zones(ctx, req, weather),
+                depends_on=("weather", "context"),
+                summarize=lambda r: f"{len(r.affected_zones)} zones affected",
+            ),
+            PipelineStep(
+                "disruptions",
+                lambda zones: unit(self._step3_create_disruptions, scenario_id, zones),
+                depends_on=("zones",),
+                summarize=lambda r: f"{r.disruptions_created} disruptions",
+            ),
+            PipelineStep(
+                "displacement",
+                lambda ctx, zones: self._step4_displace_population(ctx, req, zones),
+                depends_on=("context", "zones"),
+                summarize=lambda r: f"{r.total_displaced} people displaced",
+            ),
+            PipelineStep(
+                "supply",
+                lambda ctx, zones, displacement: self._step5_recalculate_supply(
+                    ctx, zones, displacement
+                ),
+                depends_on=("context", "zones", "displacement"),
+                summarize=lambda r: f"{r.regions_updated} regions updated",
+            ),
+            PipelineStep(
+                "alerts",
+                lambda zones, supply: unit(self._step6_generate_alerts, scenario_id, zones, supply),
+                depends_on=("zones", "supply"),
+                summarize=lambda r: f"{r.alerts_generated} alerts",
+            ),
+            # Reads the route statuses step 3 committed
+            PipelineStep(
+                "reroute",
+                lambda zones, _disruptions: unit(self._step7_reroute, scenario_id, zones),
+                depends_on=("zones", "disruptions"),
+                summarize=lambda r: f"{r.alternative_routes_created} alt routes",
+            ),
+            PipelineStep(
+                "distribution",
+                lambda ctx, zones, displacement, supply: unit(
+                    self._step8_optimize_distribution, ctx, scenario_id, zones, displacement, supply
+                ),
+                depends_on=("context", "zones", "displacement", "supply"),
+                summarize=lambda r: f"{r.plans_created} plans",
+            ),
+        ]
+
+    async def _in_session(self, step: Callable[..., Awaitable[Any]], *args: Any) -> Any:
+        """
+        Run one step in its own session and commit it.
+
+        Concurrent steps cannot share an AsyncSession, so each step is its
+        own unit of work: a failing step rolls back only its own writes.
+        """
+        async with self.session_factory() as db:
+            try:
+                result = await step(db, *args)
+                await db.commit()
+                return result
+            except Exception:
+                await db.rollback()
+                raise
+
     # ── Step 1 — Weather check ───────────────────────────────────────
 
     async def _step1_weather_check(self, req: FireDisasterRequest) -> WeatherCheckResult:
@@ -198,61 +297,50 @@ class FireDisasterService:
     # ── Step 2 — Flag affected zones ─────────────────────────────────
 
     async def _step2_flag_zones(
-        self, req: FireDisasterRequest, weather: WeatherCheckResult
+        self, ctx: ScenarioContext, req: FireDisasterRequest, weather: WeatherCheckResult
     ) -> FlagZonesResult:
-        # Load all active regions
-        result = await self.db.execute(
-            select(Region).where(Region.is_active == True)
-        )
-        all_regions: List[Region] = list(result.scalars().all())
+        # All active regions
+        all_regions: List[Region] = list(ctx.regions.values())
 
         wind_bearing = _WIND_BEARINGS.get(weather.wind_direction or "", None)
 
         affected: List[AffectedZone] = []
-        for region in all_regions:
-            dist = self._haversine(
-                req.latitude, req.longitude,
-                region.latitude, region.longitude,
-            )
-            if dist > req.radius_km:
-                continue
+        if not all_regions:
+            return FlagZonesResult(total_regions_scanned=0, affected_zones=affected)
 
-            # Severity: closer = worse, scaled by fire_intensity
-            normalised = dist / req.radius_km  # 0 at centre, 1 at edge
-            severity_score = (1 - normalised) * req.fire_intensity
+        lats = np.fromiter((r.latitude for r in all_regions), dtype=float, count=len(all_regions))
+        lons = np.fromiter((r.longitude for r in all_regions), dtype=float, count=len(all_regions))
 
-            if severity_score >= 0.6:
-                severity = "critical"
-            elif severity_score >= 0.3:
-                severity = "high"
-            else:
-                severity = "moderate"
-
-            # Check wind exposure — region is downwind of fire origin
-            wind_exposed = False
-            if wind_bearing is not None:
-                bearing_to_region = self._bearing(
-                    req.latitude, req.longitude,
-                    region.latitude, region.longitude,
-                )
-                angle_diff = abs(bearing_to_region - wind_bearing)
-                if angle_diff > 180:
-                    angle_diff = 360 - angle_diff
-                wind_exposed = angle_diff < 60  # within 60-degree cone
+        dists = haversine_km(req.latitude, req.longitude, lats, lons)
+        in_radius = dists <= req.radius_km
 
-            # Upgrade severity one level if wind-exposed
-            if wind_exposed and severity == "moderate":
-                severity = "high"
-            elif wind_exposed and severity == "high":
-                severity = "critical"
+        # Severity: closer = worse, scaled by fire_intensity
+        normalised = dists / req.radius_km  # 0 at centre, 1 at edge
+        severity_score = (1 - normalised) * req.fire_intensity
+        severity_rank = np.select(
+            [severity_score >= 0.6, severity_score >= 0.3], [2, 1], default=0
+        )
+
+        # Check wind exposure — region is downwind of fire origin
+        if wind_bearing is not None:
+            bearings = bearing_deg(req.latitude, req.longitude, lats, lons)
+            wind_exposed = angular_difference_deg(bearings, wind_bearing) < 60  # within 60-degree cone
+        else:
+            wind_exposed = np.zeros(len(all_regions), dtype=bool)
+
+        # Upgrade severity one level if wind-exposed
+        severity_rank = np.minimum(severity_rank + wind_exposed, 2)
+        severity_labels = ("moderate", "high", "critical")
 
+        for i in np.flatnonzero(in_radius):
+            region = all_regions[i]
             affected.append(AffectedZone(
                 region_id=region.id,
                 region_name=region.name,
-                distance_km=round(dist, 1),
-                severity=severity,
+                distance_km=round(float(dists[i]), 1),
+                severity=severity_labels[severity_rank[i]],
                 population=region.population,
-                wind_exposed=wind_exposed,
+                wind_exposed=bool(wind_exposed[i]),
             ))
 
         affected.sort(key=lambda z: z.distance_km)
@@ -265,7 +353,7 @@ class FireDisasterService:
     # ── Step 3 — Create route disruptions ────────────────────────────
 
     async def _step3_create_disruptions(
-        self, scenario_id: str, zones: FlagZonesResult
+        self, db: AsyncSession, scenario_id: str, zones: FlagZonesResult
     ) -> CreateDisruptionsResult:
         affected_ids = {z.region_id for z in zones.affected_zones}
         severity_map = {z.region_id: z.severity for z in zones.affected_zones}
@@ -274,8 +362,13 @@ class FireDisasterService:
             return CreateDisruptionsResult(routes_scanned=0, disruptions_created=0, disruptions=[])
 
         # Find routes that touch any affected region
-        result = await self.db.execute(
-            select(TransportRoute).where(
+        result = await db.execute(
+            select(
+                TransportRoute.id,
+                TransportRoute.name,
+                TransportRoute.origin_region_id,
+                TransportRoute.destination_region_id,
+            ).where(
                 and_(
                     TransportRoute.is_active == True,
                     TransportRoute.operational_status == "operational",
@@ -286,54 +379,71 @@ class FireDisasterService:
                 )
             )
         )
-        routes: List[TransportRoute] = list(result.scalars().all())
+        routes = result.all()
 
-        records: List[DisruptionRecord] = []
+        db_severities = {
+            "critical": DisruptionSeverity.CRITICAL,
+            "high": DisruptionSeverity.HIGH,
+            "moderate": DisruptionSeverity.MEDIUM,
+        }
+        status_map = {
+            DisruptionSeverity.CRITICAL: "blocked",
+            DisruptionSeverity.HIGH: "restricted",
+            DisruptionSeverity.MEDIUM: "impaired",
+        }
+        capacity_reduction = {"critical": 100, "high": 70, "moderate": 40}
+
+        worst_by_route: List[str] = []
+        status_by_route: List[str] = []
+        rows: List[Dict[str, Any]] = []
         for route in routes:
             # Pick the worst severity from origin/dest
             sev_origin = severity_map.get(route.origin_region_id, "")
             sev_dest = severity_map.get(route.destination_region_id, "")
             worst = self._worst_severity(sev_origin, sev_dest)
-
-            db_severity = {
-                "critical": DisruptionSeverity.CRITICAL,
-                "high": DisruptionSeverity.HIGH,
-                "moderate": DisruptionSeverity.MEDIUM,
-            }.get(worst, DisruptionSeverity.MEDIUM)
-
-            status_map = {
-                DisruptionSeverity.CRITICAL: "blocked",
-                DisruptionSeverity.HIGH: "restricted",
-                DisruptionSeverity.MEDIUM: "impaired",
-            }
-
-            disruption = RouteDisruption(
-                route_id=route.id,
-                region_id=route.origin_region_id,
-                disruption_type=DisruptionType.WEATHER,
-                severity=db_severity,
-                title=f"[{scenario_id}] Fire disruption on {route.name}",
-                description=f"Route affected by fire disaster scenario {scenario_id}",
-                capacity_reduction_percentage={
-                    "critical": 100, "high": 70, "moderate": 40
-                }.get(worst, 40),
-                is_active=True,
+            db_severity = db_severities.get(worst, DisruptionSeverity.MEDIUM)
+
+            worst_by_route.append(worst)
+            status_by_route.append(status_map.get(db_severity, "impaired"))
+            rows.append({
+                "route_id": route.id,
+                "region_id": route.origin_region_id,
+                "disruption_type": DisruptionType.WEATHER,
+                "severity": db_severity,
+                "title": f"[{scenario_id}] Fire disruption on {route.name}",
+                "description": f"Route affected by fire disaster scenario {scenario_id}",
+                "capacity_reduction_percentage": capacity_reduction.get(worst, 40),
+                "is_active": True,
+            })
+
+        disruptions = await self._bulk_insert(db, RouteDisruption, rows)
+
+        # Update route status: one UPDATE per target status, not per route
+        route_ids_by_status: Dict[str, List[int]] = {}
+        for route, status in zip(routes, status_by_route):
+            route_ids_by_status.setdefault(status, []).append(route.id)
+        for status, route_ids in route_ids_by_status.items():
+            await db.execute(
+                update(TransportRoute)
+                .where(TransportRoute.id.in_(route_ids))
+                .values(operational_status=status)
+                .execution_options(synchronize_session=False)
             )
-            self.db.add(disruption)
-            await self.db.flush()
-            await self.db.refresh(disruption)
-
-            # Update route status
-            route.operational_status = status_map.get(db_severity, "impaired")
 
+        records: List[DisruptionRecord] = []
+        for route, worst, status, disruption in zip(routes, worst_by_route, status_by_route, disruptions):
+            event_bus.publish_after_commit(db, disruption_event(DISRUPTION_CREATED, disruption))
             records.append(DisruptionRecord(
                 disruption_id=disruption.id,
                 route_id=route.id,
                 route_name=route.name,
                 severity=worst,
-                status=route.operational_status,
+                status=status,
             ))
 
+        disrupted_ids = [r.route_id for r in records]
+        run_after_commit(db, lambda: routing_graph.invalidate(disrupted_ids))
+
         return CreateDisruptionsResult(
             routes_scanned=len(routes),
             disruptions_created=len(records),
@@ -343,32 +453,27 @@ class FireDisasterService:
     # ── Step 4 — Displace population ─────────────────────────────────
 
     async def _step4_displace_population(
-        self, req: FireDisasterRequest, zones: FlagZonesResult
+        self, ctx: ScenarioContext, req: FireDisasterRequest, zones: FlagZonesResult
     ) -> DisplacePopulationResult:
         affected_ids = {z.region_id for z in zones.affected_zones}
 
-        # Find safe regions (not affected) to receive displaced people
-        result = await self.db.execute(
-            select(Region).where(
-                and_(Region.is_active == True, ~Region.id.in_(affected_ids))
-            )
-        )
-        safe_regions: List[Region] = list(result.scalars().all())
+        # Safe regions (not affected) to receive displaced people
+        safe_regions: List[Region] = [
+            r for rid, r in ctx.regions.items() if rid not in affected_ids
+        ]
 
         if not safe_regions:
             # If every region is affected, use the least-affected as receivers
             safe_regions_sorted = sorted(
                 zones.affected_zones, key=lambda z: z.distance_km, reverse=True
             )
-            receiver_ids = [z.region_id for z in safe_regions_sorted[:3]]
-            result = await self.db.execute(
-                select(Region).where(Region.id.in_(receiver_ids))
-            )
-            safe_regions = list(result.scalars().all())
-
-        entries: List[DisplacementEntry] = []
-        total_displaced = 0
+            safe_regions = [
+                ctx.regions[z.region_id] for z in safe_regions_sorted[:3]
+                if z.region_id in ctx.regions
+            ]
 
+        # Displaced headcount per zone
+        displacing = []
         for zone in zones.affected_zones:
             pop = zone.population or 0
             if pop == 0:
@@ -381,37 +486,52 @@ class FireDisasterService:
             if displaced == 0:
                 continue
 
-            # Distribute displaced population across safe regions (closest first)
-            safe_with_dist = []
-            from_region = await self._get_region(zone.region_id)
+            from_region = ctx.regions.get(zone.region_id)
             if not from_region:
                 continue
+            displacing.append((zone, from_region, displaced))
+
+        total_displaced = sum(d for _, _, d in displacing)
+        if not displacing or not safe_regions:
+            return DisplacePopulationResult(total_displaced=total_displaced, entries=[])
+
+        # Receivers with more people and more food on hand absorb more
+        days_of_supply = np.full(len(safe_regions), np.nan)
+        for j, sr in enumerate(safe_regions):
+            inv = ctx.latest_inventory.get(sr.id)
+            if inv is not None and inv.days_of_supply is not None:
+                days_of_supply[j] = inv.days_of_supply
+        capacity = receiver_capacity(
+            np.array([sr.population or 0 for sr in safe_regions], dtype=float),
+            days_of_supply,
+            reference_days=settings.shortage_warning_days,
+        )
 
-            for sr in safe_regions:
-                d = self._haversine(from_region.latitude, from_region.longitude,
-                                    sr.latitude, sr.longitude)
-                safe_with_dist.append((sr, d))
-            safe_with_dist.sort(key=lambda x: x[1])
-
-            # Send proportionally more to closer safe regions
-            remaining = displaced
-            for i, (sr, _) in enumerate(safe_with_dist):
-                if remaining <= 0:
-                    break
-                # Allocate decreasing shares
-                share = max(1, remaining // (len(safe_with_dist) - i))
-                share = min(share, remaining)
-
-                entries.append(DisplacementEntry(
-                    from_region_id=zone.region_id,
-                    from_region_name=zone.region_name,
-                    to_region_id=sr.id,
-                    to_region_name=sr.name,
-                    displaced_count=share,
-                ))
-                remaining -= share
-
-            total_displaced += displaced
+        allocation = allocate_displacement(
+            np.array([d for _, _, d in displacing], dtype=np.int64),
+            np.array([r.latitude for _, r, _ in displacing], dtype=float),
+            np.array([r.longitude for _, r, _ in displacing], dtype=float),
+            np.array([sr.latitude for sr in safe_regions], dtype=float),
+            np.array([sr.longitude for sr in safe_regions], dtype=float),
+            capacity,
+            decay_km=settings.fire_displacement_decay_km,
+            max_receivers=settings.fire_displacement_max_receivers,
+        )
+
+        entries = [
+            DisplacementEntry(
+                from_region_id=displacing[i][0].region_id,
+                from_region_name=displacing[i][0].region_name,
+                to_region_id=safe_regions[j].id,
+                to_region_name=safe_regions[j].name,
+                displaced_count=count,
+            )
+            for i, j, count in zip(
+                allocation.zone_index.tolist(),
+                allocation.receiver_index.tolist(),
+                allocation.counts.tolist(),
+            )
+        ]
 
         return DisplacePopulationResult(
             total_displaced=total_displaced,
@@ -421,7 +541,7 @@ class FireDisasterService:
     # ── Step 5 — Recalculate supply ──────────────────────────────────
 
     async def _step5_recalculate_supply(
-        self, zones: FlagZonesResult, displacement: DisplacePopulationResult
+        self, ctx: ScenarioContext, zones: FlagZonesResult, displacement: DisplacePopulationResult
     ) -> RecalculateSupplyResult:
         # Build a map: region_id -> net population change
         pop_delta: Dict[int, int] = {}
@@ -436,7 +556,7 @@ class FireDisasterService:
 
         entries: List[SupplyRecalcEntry] = []
         for rid in region_ids:
-            region = await self._get_region(rid)
+            region = ctx.regions.get(rid)
             if not region:
                 continue
 
@@ -445,14 +565,8 @@ class FireDisasterService:
             effective_pop = max(0, original_pop + delta)
             demand_mult = effective_pop / original_pop if original_pop > 0 else 1.0
 
-            # Get latest inventory for this region to estimate days-of-supply
-            inv_result = await self.db.execute(
-                select(FoodInventory)
-                .where(FoodInventory.region_id == rid)
-                .order_by(FoodInventory.recorded_at.desc())
-                .limit(1)
-            )
-            inv: Optional[FoodInventory] = inv_result.scalar_one_or_none()
+            # Latest inventory for this region to estimate days-of-supply
+            inv = ctx.latest_inventory.get(rid)
 
             est_days: Optional[float] = None
             if inv and inv.consumption_rate_tonnes_per_day and inv.consumption_rate_tonnes_per_day > 0:
@@ -478,11 +592,17 @@ class FireDisasterService:
     # ── Step 6 — Generate alerts ─────────────────────────────────────
 
     async def _step6_generate_alerts(
-        self, scenario_id: str, zones: FlagZonesResult, supply: RecalculateSupplyResult
+        self,
+        db: AsyncSession,
+        scenario_id: str,
+        zones: FlagZonesResult,
+        supply: RecalculateSupplyResult,
     ) -> GenerateAlertsResult:
-        records: List[AlertRecord] = []
+        days_by_region = {s.region_id: s.estimated_days_of_supply for s in supply.entries}
 
         # Alert for every affected zone based on severity
+        levels: List[AlertLevel] = []
+        rows: List[Dict[str, Any]] = []
         for zone in zones.affected_zones:
             # Determine alert level
             if zone.severity == "critical":
@@ -492,11 +612,8 @@ class FireDisasterService:
             else:
                 level = AlertLevel.WARNING
 
-            # Find supply data for this region
-            supply_entry = next(
-                (s for s in supply.entries if s.region_id == zone.region_id), None
-            )
-            days = supply_entry.estimated_days_of_supply if supply_entry else None
+            # Supply data for this region
+            days = days_by_region.get(zone.region_id)
 
             # Override level upward if days-of-supply is critically low
             if days is not None:
@@ -505,47 +622,50 @@ class FireDisasterService:
                 elif days < settings.shortage_imminent_days and level != AlertLevel.CRITICAL:
                     level = AlertLevel.IMMINENT
 
-            alert_code = f"SA-{uuid.uuid4().hex[:8].upper()}"
-            title = f"[{scenario_id}] Fire disaster — {zone.region_name} ({zone.severity})"
-
-            alert = ShortageAlert(
-                region_id=zone.region_id,
-                alert_code=alert_code,
-                alert_type=AlertType.WEATHER,
-                alert_level=level,
-                status=AlertStatus.ACTIVE,
-                title=title,
-                description=(
+            levels.append(level)
+            rows.append({
+                "region_id": zone.region_id,
+                "alert_code": f"SA-{uuid.uuid4().hex[:8].upper()}",
+                "alert_type": AlertType.WEATHER,
+                "alert_level": level,
+                "status": AlertStatus.ACTIVE,
+                "title": f"[{scenario_id}] Fire disaster — {zone.region_name} ({zone.severity})",
+                "description": (
                     f"Fire disaster scenario {scenario_id}. "
                     f"Region {zone.region_name} is {zone.severity}ly affected "
                     f"(distance {zone.distance_km} km from fire origin). "
                     f"Wind-exposed: {zone.wind_exposed}."
                 ),
-                population_affected=zone.population,
-                days_until_shortage=int(days) if days else None,
-                current_days_supply=days,
-                confidence_score=0.85,
-                model_name="fire_disaster_pipeline_v1",
-                recommended_actions=[
+                "population_affected": zone.population,
+                "days_until_shortage": int(days) if days else None,
+                "current_days_supply": days,
+                "confidence_score": 0.85,
+                "model_name": "fire_disaster_pipeline_v1",
+                "recommended_actions": [
                     {"action": "Activate emergency food reserves", "priority": 1},
                     {"action": "Begin evacuation-corridor supply staging", "priority": 2},
                     {"action": "Deploy mobile distribution units", "priority": 3},
                 ],
-                is_active=True,
-            )
-            self.db.add(alert)
-            await self.db.flush()
-            await self.db.refresh(alert)
+                "is_active": True,
+            })
 
+        alerts = await self._bulk_insert(db, ShortageAlert, rows)
+
+        records: List[AlertRecord] = []
+        for zone, level, alert in zip(zones.affected_zones, levels, alerts):
+            event_bus.publish_after_commit(db, alert_event(ALERT_CREATED, alert))
             records.append(AlertRecord(
                 alert_id=alert.id,
-                alert_code=alert_code,
+                alert_code=alert.alert_code,
                 region_id=zone.region_id,
                 region_name=zone.region_name,
                 level=level.value,
-                title=title,
+                title=alert.title,
             ))
 
+        if records:
+            run_after_commit(db, lambda: dashboard_cache.invalidate([DASHBOARD_CACHE_KEY]))
+
         return GenerateAlertsResult(
             alerts_generated=len(records),
             alerts=records,
@@ -554,12 +674,12 @@ class FireDisasterService:
     # ── Step 7 — Reroute ─────────────────────────────────────────────
 
     async def _step7_reroute(
-        self, scenario_id: str, zones: FlagZonesResult
+        self, db: AsyncSession, scenario_id: str, zones: FlagZonesResult
     ) -> RerouteResult:
         affected_ids = {z.region_id for z in zones.affected_zones}
 
         # Find blocked / restricted routes
-        result = await self.db.execute(
+        result = await db.execute(
             select(TransportRoute).where(
                 and_(
                     TransportRoute.is_active == True,
@@ -573,7 +693,7 @@ class FireDisasterService:
             return RerouteResult(blocked_routes=0, alternative_routes_created=0, alternatives=[])
 
         # Get safe distribution centers (outside affected zones)
-        safe_centers_result = await self.db.execute(
+        safe_centers_result = await db.execute(
             select(DistributionCenter).where(
                 and_(
                     DistributionCenter.is_active == True,
@@ -584,79 +704,98 @@ class FireDisasterService:
         )
         safe_centers: List[DistributionCenter] = list(safe_centers_result.scalars().all())
 
-        # For each blocked route, try to create an alternative via Google Maps
-        # between safe centers that serve the same origin/dest pair
-        maps_svc = GoogleMapsService()
-        alternatives: List[RerouteEntry] = []
-        seen_pairs = set()
-
-        for route in blocked_routes:
-            # Find safe centers in origin and destination regions
-            origin_center = await self._find_nearest_safe_center(
-                route.origin_region_id, safe_centers, affected_ids
-            )
-            dest_center = await self._find_nearest_safe_center(
-                route.destination_region_id, safe_centers, affected_ids
+        if not safe_centers:
+            return RerouteResult(
+                blocked_routes=len(blocked_routes), alternative_routes_created=0, alternatives=[]
             )
 
-            if not origin_center or not dest_center:
-                continue
+        # Nearest safe center to every blocked route endpoint, in one pass
+        endpoint_ids = {r.origin_region_id for r in blocked_routes} | {
+            r.destination_region_id for r in blocked_routes
+        }
+        nearest = await self._nearest_safe_centers(db, endpoint_ids, safe_centers)
+
+        # Candidate (origin center, dest center) pairs, one per blocked route
+        candidates: Dict[Tuple[int, int], Tuple[DistributionCenter, DistributionCenter]] = {}
+        for route in blocked_routes:
+            origin_center = nearest.get(route.origin_region_id, safe_centers[0])
+            dest_center = nearest.get(route.destination_region_id, safe_centers[0])
             if origin_center.id == dest_center.id:
                 continue
+            candidates.setdefault((origin_center.id, dest_center.id), (origin_center, dest_center))
 
-            pair_key = (origin_center.id, dest_center.id)
-            if pair_key in seen_pairs:
-                continue
-            seen_pairs.add(pair_key)
-
-            # Check if this alternative route already exists
-            existing = await self.db.execute(
-                select(TransportRoute).where(
-                    and_(
-                        TransportRoute.origin_center_id == origin_center.id,
-                        TransportRoute.destination_center_id == dest_center.id,
-                        TransportRoute.is_active == True,
-                        TransportRoute.operational_status == "operational",
-                    )
-                )
+        if not candidates:
+            return RerouteResult(
+                blocked_routes=len(blocked_routes), alternative_routes_created=0, alternatives=[]
             )
-            if existing.scalar_one_or_none():
-                continue
 
-            try:
-                directions = await maps_svc.get_directions(
-                    origin_center.latitude, origin_center.longitude,
-                    dest_center.latitude, dest_center.longitude,
+        # Skip pairs that already have an operational route (one query)
+        existing = await db.execute(
+            select(
+                TransportRoute.origin_center_id,
+                TransportRoute.destination_center_id,
+            ).where(
+                and_(
+                    tuple_(
+                        TransportRoute.origin_center_id,
+                        TransportRoute.destination_center_id,
+                    ).in_(list(candidates)),
+                    TransportRoute.is_active == True,
+                    TransportRoute.operational_status == "operational",
                 )
-            except Exception as e:
-                logger.warning(f"[{scenario_id}] Google Maps alt-route failed: {e}")
-                continue
-
-            route_code = f"ALT-{scenario_id[-6:]}-{origin_center.center_code}-{dest_center.center_code}"
-            alt_route = TransportRoute(
-                name=f"[ALT] {origin_center.name} -> {dest_center.name}",
-                route_code=route_code,
-                origin_center_id=origin_center.id,
-                destination_center_id=dest_center.id,
-                origin_region_id=origin_center.region_id,
-                destination_region_id=dest_center.region_id,
-                distance_km=directions["distance_km"],
-                estimated_time_hours=directions["duration_hours"],
-                path_geometry={"polyline": directions.get("polyline", "")},
-                operational_status="operational",
-                is_active=True,
             )
-            self.db.add(alt_route)
-            await self.db.flush()
-            await self.db.refresh(alt_route)
+        )
+        existing_pairs = {(o, d) for o, d in existing.all()}
+        todo = [pair for key, pair in candidates.items() if key not in existing_pairs]
 
-            alternatives.append(RerouteEntry(
+        # Google Maps calls fan out under the route generation limit
+        maps_svc = GoogleMapsService()
+        semaphore = asyncio.Semaphore(settings.route_generation_concurrency)
+        fetched = await asyncio.gather(*(
+            self._limited(semaphore, maps_svc.get_directions(
+                o.latitude, o.longitude, d.latitude, d.longitude,
+            ))
+            for o, d in todo
+        ))
+
+        created: List[Tuple[DistributionCenter, DistributionCenter, Dict[str, Any]]] = []
+        for (origin_center, dest_center), directions in zip(todo, fetched):
+            if isinstance(directions, Exception):
+                logger.warning(f"[{scenario_id}] Google Maps alt-route failed: {directions}")
+                continue
+            created.append((origin_center, dest_center, directions))
+
+        rows = [
+            {
+                "name": f"[ALT] {o.name} -> {d.name}",
+                "route_code": f"ALT-{scenario_id[-6:]}-{o.center_code}-{d.center_code}",
+                "origin_center_id": o.id,
+                "destination_center_id": d.id,
+                "origin_region_id": o.region_id,
+                "destination_region_id": d.region_id,
+                "distance_km": directions["distance_km"],
+                "estimated_time_hours": directions["duration_hours"],
+                "path_geometry": {"polyline": directions.get("polyline", "")},
+                "operational_status": "operational",
+                "is_active": True,
+            }
+            for o, d, directions in created
+        ]
+        alt_routes = await self._bulk_insert(db, TransportRoute, rows)
+
+        alternatives = [
+            RerouteEntry(
                 route_id=alt_route.id,
-                origin=origin_center.name,
-                destination=dest_center.name,
+                origin=o.name,
+                destination=d.name,
                 distance_km=directions["distance_km"],
                 duration_hours=directions["duration_hours"],
-            ))
+            )
+            for (o, d, directions), alt_route in zip(created, alt_routes)
+        ]
+
+        alt_ids = [a.route_id for a in alternatives]
+        run_after_commit(db, lambda: routing_graph.invalidate(alt_ids))
 
         return RerouteResult(
             blocked_routes=len(blocked_routes),
@@ -668,6 +807,8 @@ class FireDisasterService:
 
     async def _step8_optimize_distribution(
         self,
+        db: AsyncSession,
+        ctx: ScenarioContext,
         scenario_id: str,
         zones: FlagZonesResult,
         displacement: DisplacePopulationResult,
@@ -689,61 +830,49 @@ class FireDisasterService:
                     receiving[zone.region_id] = receiving.get(zone.region_id, 0) + remaining_pop
 
         plans: List[DistributionPlanSummary] = []
+        rows: List[Dict[str, Any]] = []
 
         for region_id, pop_to_serve in receiving.items():
             if pop_to_serve <= 0:
                 continue
 
-            region = await self._get_region(region_id)
+            region = ctx.regions.get(region_id)
             if not region:
                 continue
 
             # Estimate food needed: 0.6 kg per person per day for 7-day plan
             food_tonnes = round(pop_to_serve * 0.6 * 7 / 1000, 2)
 
-            # Count distribution centers in this region
-            dc_result = await self.db.execute(
-                select(func.count()).select_from(DistributionCenter).where(
-                    and_(
-                        DistributionCenter.region_id == region_id,
-                        DistributionCenter.is_active == True,
-                    )
-                )
-            )
-            dc_count = dc_result.scalar() or 0
+            # Distribution centers in this region
+            dc_count = ctx.center_counts.get(region_id, 0)
 
             plan_code = f"DP-{scenario_id[-6:]}-{region.region_code}"
-            plan = DistributionPlan(
-                plan_code=plan_code,
-                plan_name=f"[{scenario_id}] Emergency plan — {region.name}",
-                region_id=region_id,
-                trigger_reason=f"Fire disaster {scenario_id}",
-                status=PlanStatus.DRAFT,
-                population_covered=pop_to_serve,
-                total_food_tonnes=food_tonnes,
-                duration_days=7,
-                distribution_centers_count=dc_count,
-                priority_weights={
+            rows.append({
+                "plan_code": plan_code,
+                "plan_name": f"[{scenario_id}] Emergency plan — {region.name}",
+                "region_id": region_id,
+                "trigger_reason": f"Fire disaster {scenario_id}",
+                "status": PlanStatus.DRAFT,
+                "population_covered": pop_to_serve,
+                "total_food_tonnes": food_tonnes,
+                "duration_days": 7,
+                "distribution_centers_count": dc_count,
+                "priority_weights": {
                     PopulationType.ELDERLY.value: 1.0,
                     PopulationType.CHILDREN.value: 1.0,
                     PopulationType.PREGNANT.value: 1.0,
                     PopulationType.HEALTHCARE_WORKER.value: 0.9,
                     PopulationType.GENERAL.value: 0.7,
                 },
-                food_allocation={
+                "food_allocation": {
                     "rice": round(food_tonnes * 0.4, 2),
                     "wheat": round(food_tonnes * 0.2, 2),
                     "legumes": round(food_tonnes * 0.15, 2),
                     "oil": round(food_tonnes * 0.05, 2),
                     "vegetables": round(food_tonnes * 0.2, 2),
                 },
-            )
-            self.db.add(plan)
-            await self.db.flush()
-            await self.db.refresh(plan)
-
+            })
             plans.append(DistributionPlanSummary(
-                plan_id=plan.id,
                 plan_code=plan_code,
                 region_id=region_id,
                 region_name=region.name,
@@ -753,6 +882,9 @@ class FireDisasterService:
                 priority_groups=["elderly", "children", "pregnant", "healthcare_worker", "general"],
             ))
 
+        for summary, plan in zip(plans, await self._bulk_insert(db, DistributionPlan, rows)):
+            summary.plan_id = plan.id
+
         return OptimizeDistributionResult(
             plans_created=len(plans),
             plans=plans,
@@ -760,58 +892,51 @@ class FireDisasterService:
 
     # ── Helpers ───────────────────────────────────────────────────────
 
-    async def _get_region(self, region_id: int) -> Optional[Region]:
-        result = await self.db.execute(
-            select(Region).where(Region.id == region_id)
-        )
-        return result.scalar_one_or_none()
-
-    async def _find_nearest_safe_center(
+    async def _nearest_safe_centers(
         self,
-        target_region_id: int,
+        db: AsyncSession,
+        region_ids: Set[int],
         safe_centers: List[DistributionCenter],
-        affected_ids: set,
-    ) -> Optional[DistributionCenter]:
-        """Find the nearest safe distribution center to a target region."""
-        region = await self._get_region(target_region_id)
-        if not region:
-            return safe_centers[0] if safe_centers else None
-
-        best = None
-        best_dist = float("inf")
-        for c in safe_centers:
-            if c.region_id in affected_ids:
-                continue
-            d = self._haversine(region.latitude, region.longitude, c.latitude, c.longitude)
-            if d < best_dist:
-                best_dist = d
-                best = c
-        return best
+    ) -> Dict[int, DistributionCenter]:
+        """Nearest safe distribution center to each region (unknown regions are omitted)."""
+        result = await db.execute(
+            select(Region.id, Region.latitude, Region.longitude).where(Region.id.in_(region_ids))
+        )
+        regions = result.all()
+        if not regions or not safe_centers:
+            return {}
+
+        dists = distance_matrix_km(
+            [r.latitude for r in regions],
+            [r.longitude for r in regions],
+            [c.latitude for c in safe_centers],
+            [c.longitude for c in safe_centers],
+        )
+        closest = np.argmin(dists, axis=1)
+        return {r.id: safe_centers[int(j)] for r, j in zip(regions, closest)}
 
     @staticmethod
-    def _worst_severity(a: str, b: str) -> str:
-        order = {"critical": 3, "high": 2, "moderate": 1, "": 0}
-        return a if order.get(a, 0) >= order.get(b, 0) else b
+    async def _bulk_insert(db: AsyncSession, model: Any, rows: List[Dict[str, Any]]) -> List[Any]:
+        """Multi-row INSERT ... RETURNING; objects come back in ``rows`` order."""
+        created: List[Any] = []
+        for start in range(0, len(rows), FIRE_INSERT_BATCH_SIZE):
+            result = await db.scalars(
+                insert(model).returning(model, sort_by_parameter_order=True),
+                rows[start:start + FIRE_INSERT_BATCH_SIZE],
+            )
+            created.extend(result.all())
+        return created
 
     @staticmethod
-    def _haversine(lat1: float, lon1: float, lat2: float, lon2: float) -> float:
-        R = 6371
-        dlat = math.radians(lat2 - lat1)
-        dlon = math.radians(lon2 - lon1)
-        a = (
-            math.sin(dlat / 2) ** 2
-            + math.cos(math.radians(lat1))
-            * math.cos(math.radians(lat2))
-            * math.sin(dlon / 2) ** 2
-        )
-        return R * 2 * math.atan2(math.sqrt(a), math.sqrt(1 - a))
+    async def _limited(semaphore: asyncio.Semaphore, call: Awaitable[Any]) -> Any:
+        """Await call under the semaphore; exceptions are returned, not raised."""
+        async with semaphore:
+            try:
+                return await call
+            except Exception as e:
+                return e
 
     @staticmethod
-    def _bearing(lat1: float, lon1: float, lat2: float, lon2: float) -> float:
-        """Bearing from point 1 to point 2 in degrees [0, 360)."""
-        dlon = math.radians(lon2 - lon1)
-        lat1r = math.radians(lat1)
-        lat2r = math.radians(lat2)
-        x = math.sin(dlon) * math.cos(lat2r)
-        y = math.cos(lat1r) * math.sin(lat2r) - math.sin(lat1r) * math.cos(lat2r) * math.cos(dlon)
-        return (math.degrees(math.atan2(x, y)) + 360) % 360
+    def _worst_severity(a: str, b: str) -> str:
+        order = {"critical": 3, "high": 2, "moderate": 1, "": 0}
+        return a if order.get(a, 0) >= order.get(b, 0) else b
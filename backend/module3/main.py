@@ -4,6 +4,7 @@ SENTINEL-HEALTH Module 3: Food Security & Dependency Management
 Main FastAPI application entry point.
 """
 
+import asyncio
 import logging
 from contextlib import asynccontextmanager
 from datetime import datetime
@@ -16,6 +17,12 @@ import structlog
 
 from config import get_settings
 from models.base import init_db, engine
+from services.http_client import http_clients
+from services.cache import close_redis
+from services.partitioning import partition_maintenance_loop
+from services.notification_dispatcher import notification_dispatcher
+from services.event_bus import event_bus
+from fire_disaster.jobs import fire_scenario_runner
 from api import api_router
 
 # Configure logging
@@ -56,10 +63,26 @@ async def lifespan(app: FastAPI):
         logger.warning(f"Database initialization skipped: {e}")
         logger.warning("API will start but database operations will fail until DB is configured")
 
+    await http_clients.startup()
+    await event_bus.startup()
+    partition_task = asyncio.create_task(partition_maintenance_loop(engine))
+    dispatcher_task = asyncio.create_task(notification_dispatcher.run_forever())
+    await fire_scenario_runner.startup()
+
     yield
 
     # Shutdown
     logger.info("Shutting down SENTINEL-HEALTH Module 3")
+    partition_task.cancel()
+    dispatcher_task.cancel()
+    # Let background loops unwind (an in-flight claim or send, a
+    # maintenance transaction) before the HTTP clients, Redis and the
+    # engine are closed underneath them
+    await asyncio.gather(partition_task, dispatcher_task, return_exceptions=True)
+    await fire_scenario_runner.shutdown()
+    await event_bus.shutdown()
+    await http_clients.shutdown()
+    await close_redis()
     try:
         await engine.dispose()
     except Exception:
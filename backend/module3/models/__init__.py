@@ -9,7 +9,9 @@ from .agricultural import (
     AgriculturalProduction,
     HarvestForecast,
     WeatherData,
-    CropHealthIndicator
+    WeatherDataDaily,
+    CropHealthIndicator,
+    CropHealthDaily
 )
 from .distribution import (
     TransportationCorridor,
@@ -20,6 +22,8 @@ from .distribution import (
 )
 from .inventory import (
     FoodInventory,
+    FoodInventoryDaily,
+    CurrentInventory,
     FoodCategory,
     WarehouseStock,
     ConsumptionPattern
@@ -33,7 +37,8 @@ from .dependency import (
 from .alerts import (
     ShortageAlert,
     AlertHistory,
-    AlertSubscription
+    AlertSubscription,
+    NotificationOutbox
 )
 from .distribution_plan import (
     DistributionPlan,
@@ -46,6 +51,7 @@ from .resilience import (
     CropDiversificationPlan,
     ResilienceRecommendation
 )
+from .fire_scenario import FireScenarioRun
 
 __all__ = [
     # Base
@@ -59,7 +65,9 @@ __all__ = [
     "AgriculturalProduction",
     "HarvestForecast",
     "WeatherData",
+    "WeatherDataDaily",
     "CropHealthIndicator",
+    "CropHealthDaily",
     # Distribution
     "TransportationCorridor",
     "DistributionCenter",
@@ -68,6 +76,8 @@ __all__ = [
     "ColdChainFacility",
     # Inventory
     "FoodInventory",
+    "FoodInventoryDaily",
+    "CurrentInventory",
     "FoodCategory",
     "WarehouseStock",
     "ConsumptionPattern",
@@ -80,6 +90,7 @@ __all__ = [
     "ShortageAlert",
     "AlertHistory",
     "AlertSubscription",
+    "NotificationOutbox",
     # Distribution Plan
     "DistributionPlan",
     "DistributionPoint",
@@ -89,4 +100,6 @@ __all__ = [
     "UrbanAgricultureSite",
     "CropDiversificationPlan",
     "ResilienceRecommendation",
+    # Fire Disaster Jobs
+    "FireScenarioRun",
 ]
@@ -6,8 +6,8 @@ from datetime import datetime
 from typing import Optional
 
 from sqlalchemy import (
-    Column, String, Float, Integer, DateTime, Text, Boolean,
-    ForeignKey, Enum as SQLEnum, JSON, Index
+    Column, String, Float, Integer, Date, DateTime, Text, Boolean,
+    ForeignKey, Enum as SQLEnum, JSON, Index, UniqueConstraint
 )
 from sqlalchemy.orm import relationship
 import enum
@@ -220,12 +220,12 @@ class HarvestForecast(Base):
 
 
 class WeatherData(Base):
-    """Weather data for agricultural monitoring."""
+    """Weather data for agricultural monitoring (monthly range partitions on recorded_at)."""
 
     __tablename__ = "weather_data"
 
     region_id = Column(Integer, ForeignKey("regions.id"), nullable=False)
-    recorded_at = Column(DateTime, nullable=False)
+    recorded_at = Column(DateTime, primary_key=True, nullable=False)
 
     # Temperature
     temperature_c = Column(Float)
@@ -259,16 +259,42 @@ class WeatherData(Base):
 
     __table_args__ = (
         Index("idx_weather_region_date", "region_id", "recorded_at"),
+        {"postgresql_partition_by": "RANGE (recorded_at)"},
+    )
+
+
+class WeatherDataDaily(Base):
+    """Daily rollup of WeatherData past raw-data retention."""
+
+    __tablename__ = "weather_data_daily"
+
+    region_id = Column(Integer, ForeignKey("regions.id"), nullable=False)
+    day = Column(Date, nullable=False)
+
+    readings = Column(Integer, nullable=False)
+    temperature_avg_c = Column(Float)
+    temperature_min_c = Column(Float)
+    temperature_max_c = Column(Float)
+    rainfall_total_mm = Column(Float)
+    humidity_avg_percentage = Column(Float)
+    wind_speed_max_kmh = Column(Float)
+    is_drought = Column(Boolean, default=False)
+    is_flood = Column(Boolean, default=False)
+    is_frost = Column(Boolean, default=False)
+    is_heatwave = Column(Boolean, default=False)
+
+    __table_args__ = (
+        UniqueConstraint("region_id", "day", name="uq_weather_daily"),
     )
 
 
 class CropHealthIndicator(Base):
-    """Crop health indicators from satellite imagery."""
+    """Crop health indicators from satellite imagery (monthly range partitions on recorded_at)."""
 
     __tablename__ = "crop_health_indicators"
 
     region_id = Column(Integer, ForeignKey("regions.id"), nullable=False)
-    recorded_at = Column(DateTime, nullable=False)
+    recorded_at = Column(DateTime, primary_key=True, nullable=False)
 
     # Vegetation indices
     ndvi = Column(Float)  # Normalized Difference Vegetation Index (-1 to 1)
@@ -297,4 +323,27 @@ class CropHealthIndicator(Base):
 
     __table_args__ = (
         Index("idx_crop_health_region_date", "region_id", "recorded_at"),
+        {"postgresql_partition_by": "RANGE (recorded_at)"},
+    )
+
+
+class CropHealthDaily(Base):
+    """Daily rollup of CropHealthIndicator past raw-data retention."""
+
+    __tablename__ = "crop_health_daily"
+
+    region_id = Column(Integer, ForeignKey("regions.id"), nullable=False)
+    day = Column(Date, nullable=False)
+
+    readings = Column(Integer, nullable=False)
+    ndvi_avg = Column(Float)
+    evi_avg = Column(Float)
+    crop_stress_index_avg = Column(Float)
+    crop_stress_index_max = Column(Float)
+    disease_risk_max = Column(Float)
+    pest_risk_max = Column(Float)
+    vegetation_coverage_avg_percentage = Column(Float)
+
+    __table_args__ = (
+        UniqueConstraint("region_id", "day", name="uq_crop_health_daily"),
     )
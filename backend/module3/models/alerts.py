@@ -7,7 +7,7 @@ from typing import Optional
 
 from sqlalchemy import (
     Column, String, Float, Integer, DateTime, Text, Boolean,
-    ForeignKey, Enum as SQLEnum, JSON, Index
+    ForeignKey, Enum as SQLEnum, JSON, Index, text
 )
 from sqlalchemy.orm import relationship
 import enum
@@ -116,6 +116,7 @@ class ShortageAlert(Base):
         Index("idx_alert_region_level", "region_id", "alert_level"),
         Index("idx_alert_status", "status", "is_active"),
         Index("idx_alert_type_date", "alert_type", "created_at"),
+        Index("idx_alert_created_id", "created_at", "id"),  # keyset pagination
     )
 
 
@@ -199,6 +200,49 @@ class AlertSubscription(Base):
     )
 
 
+class NotificationOutbox(Base):
+    """
+    Transactional outbox of alert notifications.
+
+    Rows are written in the same transaction as the alert and drained by
+    services.notification_dispatcher, so alert creation never waits on
+    subscribers or delivery channels. Sent and dead rows are purged after
+    ``notification_outbox_retention_days``.
+    """
+
+    __tablename__ = "notification_outbox"
+
+    alert_id = Column(Integer, ForeignKey("shortage_alerts.id"), nullable=False)
+    subscription_id = Column(Integer, ForeignKey("alert_subscriptions.id"))  # null for escalations
+
+    # Delivery
+    channel = Column(String(20), nullable=False)  # email, sms, webhook, escalation
+    recipient = Column(String(500), nullable=False)
+    payload = Column(JSON, nullable=False)
+    dedup_key = Column(String(255), unique=True, nullable=False)
+
+    # Status
+    status = Column(String(20), nullable=False, default="pending")  # pending, sending, sent, dead
+    attempts = Column(Integer, nullable=False, default=0)
+    next_attempt_at = Column(DateTime, nullable=False, default=datetime.utcnow)
+    claimed_at = Column(DateTime)
+    sent_at = Column(DateTime)
+    last_error = Column(Text)
+
+    __table_args__ = (
+        # Only undelivered rows are scanned by the dispatcher's claim query
+        Index(
+            "idx_outbox_due", "status", "next_attempt_at",
+            postgresql_where=text("status IN ('pending', 'sending')"),
+        ),
+        # Retention purge of delivered rows
+        Index(
+            "idx_outbox_delivered", "updated_at",
+            postgresql_where=text("status IN ('sent', 'dead')"),
+        ),
+    )
+
+
 class AlertAction(Base):
     """Recommended and taken actions for alerts."""
 
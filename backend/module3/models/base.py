@@ -2,15 +2,17 @@
 Base database configuration and session management.
 """
 
+import logging
 from datetime import datetime
-from typing import AsyncGenerator
+from typing import AsyncGenerator, Callable
 
-from sqlalchemy import Column, DateTime, Integer, func
+from sqlalchemy import Column, DateTime, Integer, event, func
 from sqlalchemy.ext.asyncio import AsyncSession, create_async_engine, async_sessionmaker
-from sqlalchemy.orm import DeclarativeBase
+from sqlalchemy.orm import DeclarativeBase, Session
 
 from config import get_settings
 
+logger = logging.getLogger(__name__)
 settings = get_settings()
 
 # Create async engine
@@ -57,6 +59,30 @@ async def get_db() -> AsyncGenerator[AsyncSession, None]:
             await session.close()
 
 
+def run_after_commit(session: AsyncSession, callback: Callable[[], None]) -> None:
+    """
+    Run callback once the session's current transaction commits.
+
+    Used to keep in-process caches in step with the database: callbacks
+    are dropped if the transaction rolls back.
+    """
+    session.sync_session.info.setdefault("after_commit_callbacks", []).append(callback)
+
+
+@event.listens_for(Session, "after_commit")
+def _run_after_commit_callbacks(session: Session) -> None:
+    for callback in session.info.pop("after_commit_callbacks", []):
+        try:
+            callback()
+        except Exception:
+            logger.exception("after-commit callback failed")
+
+
+@event.listens_for(Session, "after_rollback")
+def _drop_after_commit_callbacks(session: Session) -> None:
+    session.info.pop("after_commit_callbacks", None)
+
+
 async def init_db():
     """Initialize database tables."""
     async with engine.begin() as conn:
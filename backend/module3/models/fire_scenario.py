@@ -0,0 +1,37 @@
+"""
+Fire disaster simulation job models.
+"""
+
+from sqlalchemy import Column, String, DateTime, Text, JSON, Index
+
+from .base import Base
+
+
+class FireScenarioRun(Base):
+    """
+    One fire disaster simulation submitted in job mode.
+
+    Claimed and executed by fire_disaster.jobs; each pipeline step's result
+    is written to step_results as soon as the step finishes, so a client
+    polling the run sees partial progress.
+    """
+
+    __tablename__ = "fire_scenario_runs"
+
+    scenario_id = Column(String(32), unique=True, nullable=False, index=True)
+    status = Column(String(20), nullable=False, default="queued")  # queued, running, completed, failed
+    request = Column(JSON, nullable=False)  # FireDisasterRequest
+
+    # Progress — step_results is keyed by response field (step_1_weather, ...)
+    step_results = Column(JSON, nullable=False, default=dict)
+    step_timings = Column(JSON, nullable=False, default=list)
+    summary = Column(JSON)
+    error = Column(Text)
+
+    started_at = Column(DateTime)
+    heartbeat_at = Column(DateTime)  # last progress write; stale runs are failed
+    completed_at = Column(DateTime)
+
+    __table_args__ = (
+        Index("idx_fire_run_status", "status", "created_at"),
+    )
@@ -6,8 +6,8 @@ from datetime import datetime
 from typing import Optional
 
 from sqlalchemy import (
-    Column, String, Float, Integer, DateTime, Text, Boolean,
-    ForeignKey, Enum as SQLEnum, JSON, Index
+    Column, String, Float, Integer, Date, DateTime, Text, Boolean,
+    ForeignKey, Enum as SQLEnum, JSON, Index, UniqueConstraint
 )
 from sqlalchemy.orm import relationship
 import enum
@@ -68,7 +68,12 @@ class FoodCategory(Base):
 
 
 class FoodInventory(Base):
-    """Regional food inventory levels."""
+    """
+    Regional food inventory levels.
+
+    Range-partitioned by month on recorded_at (see services.partitioning),
+    so recorded_at is part of the primary key.
+    """
 
     __tablename__ = "food_inventory"
 
@@ -76,7 +81,7 @@ class FoodInventory(Base):
     category_id = Column(Integer, ForeignKey("food_categories.id"), nullable=False)
 
     # Inventory levels
-    recorded_at = Column(DateTime, nullable=False, default=datetime.utcnow)
+    recorded_at = Column(DateTime, primary_key=True, nullable=False, default=datetime.utcnow)
     quantity_tonnes = Column(Float, nullable=False)
     quantity_change_tonnes = Column(Float)  # Change from previous record
 
@@ -112,6 +117,61 @@ class FoodInventory(Base):
     __table_args__ = (
         Index("idx_inventory_region_category", "region_id", "category_id"),
         Index("idx_inventory_date", "recorded_at"),
+        Index("idx_inventory_latest", "region_id", "category_id", "recorded_at"),
+        {"postgresql_partition_by": "RANGE (recorded_at)"},
+    )
+
+
+class FoodInventoryDaily(Base):
+    """Daily rollup of FoodInventory readings past raw-data retention."""
+
+    __tablename__ = "food_inventory_daily"
+
+    region_id = Column(Integer, ForeignKey("regions.id"), nullable=False)
+    category_id = Column(Integer, ForeignKey("food_categories.id"), nullable=False)
+    day = Column(Date, nullable=False)
+
+    readings = Column(Integer, nullable=False)
+    quantity_tonnes_avg = Column(Float)
+    quantity_tonnes_min = Column(Float)
+    quantity_tonnes_max = Column(Float)
+    closing_quantity_tonnes = Column(Float)  # last reading of the day
+    days_of_supply_min = Column(Float)
+    consumption_rate_avg = Column(Float)
+
+    __table_args__ = (
+        UniqueConstraint("region_id", "category_id", "day", name="uq_inventory_daily"),
+    )
+
+
+class CurrentInventory(Base):
+    """
+    Latest FoodInventory reading per (region, category).
+
+    Maintained on write (see services.inventory_snapshot) so "current
+    stock" readers do a single indexed lookup instead of scanning history.
+    """
+
+    __tablename__ = "current_inventory"
+
+    region_id = Column(Integer, ForeignKey("regions.id"), nullable=False)
+    category_id = Column(Integer, ForeignKey("food_categories.id"), nullable=False)
+
+    # Source reading (plain id, no FK, so history can be partitioned/pruned)
+    inventory_id = Column(Integer, nullable=False)
+    recorded_at = Column(DateTime, nullable=False)
+
+    quantity_tonnes = Column(Float, nullable=False)
+    days_of_supply = Column(Float)
+    consumption_rate_tonnes_per_day = Column(Float)
+    stock_status = Column(String(20))
+
+    # Relationships
+    category = relationship("FoodCategory")
+
+    __table_args__ = (
+        UniqueConstraint("region_id", "category_id", name="uq_current_inventory_region_category"),
+        Index("idx_current_inventory_days", "days_of_supply"),
     )
 
 
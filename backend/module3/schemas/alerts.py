@@ -144,6 +144,7 @@ class AlertSubscriptionCreate(BaseModel):
 class AlertSubscriptionUpdate(BaseModel):
     region_ids: Optional[List[int]] = None
     category_ids: Optional[List[int]] = None
+    alert_types: Optional[List[AlertType]] = None
     minimum_alert_level: Optional[AlertLevel] = None
     notify_email: Optional[bool] = None
     notify_sms: Optional[bool] = None
@@ -39,12 +39,32 @@ class PaginationParams(BaseModel):
 
 
 class PaginatedResponse(BaseModel, Generic[T]):
-    """Paginated response wrapper."""
+    """
+    Paginated response wrapper.
+
+    ``total`` / ``total_pages`` are None when the count was skipped
+    (``count=none``). Pass ``next_cursor`` back as ``cursor`` to fetch the
+    next page; it is None on the last page.
+    """
     items: List[T]
-    total: int
+    total: Optional[int] = None
     page: int
     page_size: int
-    total_pages: int
+    total_pages: Optional[int] = None
+    next_cursor: Optional[str] = None
+
+    @classmethod
+    def from_page(cls, page: Any, page_number: int, page_size: int) -> "PaginatedResponse":
+        """Build from a services.pagination.Page."""
+        total = page.total
+        return cls(
+            items=page.items,
+            total=total,
+            page=page_number,
+            page_size=page_size,
+            total_pages=(total + page_size - 1) // page_size if total is not None else None,
+            next_cursor=page.next_cursor,
+        )
 
 
 class StatusResponse(BaseModel):
@@ -261,6 +261,7 @@ class OptimizedRoute(BaseSchema):
     cold_chain_capable: bool
     disruption_risk: float
     waypoints: List[Dict[str, Any]]
+    leg_route_ids: List[int] = []
 
 
 class RouteOptimizationResponse(BaseSchema):
@@ -35,6 +35,14 @@ class AutoRouteGenerateRequest(BaseModel):
         le=200,
         description="Maximum number of routes to generate (cost control)"
     )
+    use_distance_matrix: bool = Field(
+        default=False,
+        description="Read distance/duration from Distance Matrix tiles instead of one Directions call per pair"
+    )
+    fetch_polylines: bool = Field(
+        default=True,
+        description="In distance-matrix mode, fetch Directions polylines for persisted routes"
+    )
 
 
 class AutoRouteResult(BaseSchema):
@@ -81,6 +81,26 @@ class InventoryCreate(InventoryBase):
     data_source: Optional[str] = None
 
 
+class InventoryBulkRow(InventoryCreate):
+    """One row of a bulk inventory upload."""
+    recorded_at: Optional[datetime] = None  # defaults to ingest time
+
+
+class InventoryBulkRowError(BaseModel):
+    line: int
+    errors: List[str]
+
+
+class InventoryBulkIngestResponse(BaseModel):
+    rows_received: int
+    rows_inserted: int
+    rows_failed: int
+    chunks_written: int
+    duration_seconds: float
+    errors: List[InventoryBulkRowError] = []
+    errors_truncated: bool = False
+
+
 class InventoryUpdate(BaseModel):
     quantity_tonnes: Optional[float] = Field(None, ge=0)
     quantity_change_tonnes: Optional[float] = None
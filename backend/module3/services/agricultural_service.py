@@ -449,16 +449,12 @@ class AgriculturalMonitoringService:
             WeatherData.region_id == region_id
         )
 
-        if start_date and end_date:
-            query = query.where(
-                and_(
-                    WeatherData.recorded_at >= start_date,
-                    WeatherData.recorded_at <= end_date
-                )
-            )
-        else:
-            cutoff = datetime.utcnow() - timedelta(days=days_back)
-            query = query.where(WeatherData.recorded_at >= cutoff)
+        # Always bound recorded_at from below so only recent partitions are scanned
+        if start_date is None:
+            start_date = (end_date or datetime.utcnow()) - timedelta(days=days_back)
+        query = query.where(WeatherData.recorded_at >= start_date)
+        if end_date is not None:
+            query = query.where(WeatherData.recorded_at <= end_date)
 
         query = query.order_by(WeatherData.recorded_at.desc())
         result = await self.db.execute(query)
@@ -520,16 +516,12 @@ class AgriculturalMonitoringService:
             CropHealthIndicator.region_id == region_id
         )
 
-        if start_date and end_date:
-            query = query.where(
-                and_(
-                    CropHealthIndicator.recorded_at >= start_date,
-                    CropHealthIndicator.recorded_at <= end_date
-                )
-            )
-        else:
-            cutoff = datetime.utcnow() - timedelta(days=days_back)
-            query = query.where(CropHealthIndicator.recorded_at >= cutoff)
+        # Always bound recorded_at from below so only recent partitions are scanned
+        if start_date is None:
+            start_date = (end_date or datetime.utcnow()) - timedelta(days=days_back)
+        query = query.where(CropHealthIndicator.recorded_at >= start_date)
+        if end_date is not None:
+            query = query.where(CropHealthIndicator.recorded_at <= end_date)
 
         query = query.order_by(CropHealthIndicator.recorded_at.desc())
         result = await self.db.execute(query)
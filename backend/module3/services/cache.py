@@ -0,0 +1,314 @@
+"""
+Response Cache
+
+Two-tier read-through cache for expensive, repeatable lookups (Google Maps
+directions and distance-matrix elements). Reads hit an in-process LRU
+first, then Redis (``settings.redis_url``); misses call the loader and
+write both tiers with a TTL.
+
+Redis is optional: if it is unreachable the cache degrades to the local
+LRU and retries Redis after a short back-off instead of failing requests.
+Deletes are still attempted during the back-off; any that fail are
+retried on the next Redis call.
+
+Caches invalidated by writers (e.g. the alert dashboard) keep a
+generation counter per namespace that every invalidation increments.
+Read ``generation()`` before rebuilding a value and store it with
+``set_many_if_unchanged``, so a rebuild that read data from before a
+concurrent write can never overwrite that write's invalidation.
+"""
+
+import asyncio
+import json
+import logging
+import time
+from collections import OrderedDict
+from typing import Any, Awaitable, Callable, Dict, List, Optional, Sequence, Set, Tuple
+
+import redis.asyncio as redis
+from redis.exceptions import WatchError
+
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+REDIS_RETRY_SECONDS = 30
+
+_redis_client: Optional[redis.Redis] = None
+
+
+def get_redis() -> redis.Redis:
+    """Shared Redis client (connections are pooled by redis-py)."""
+    global _redis_client
+    if _redis_client is None:
+        _redis_client = redis.Redis.from_url(
+            settings.redis_url,
+            decode_responses=True,
+            socket_connect_timeout=1,
+            socket_timeout=1,
+        )
+    return _redis_client
+
+
+async def close_redis() -> None:
+    """Close the shared Redis client (called from the app lifespan)."""
+    global _redis_client
+    if _redis_client is not None:
+        try:
+            await _redis_client.aclose()
+        except Exception as e:
+            logger.warning(f"Error closing Redis client: {e}")
+        _redis_client = None
+
+
+class ResponseCache:
+    """In-process LRU in front of Redis, with TTL and hit/miss counters."""
+
+    def __init__(self, namespace: str, ttl_seconds: int, max_local_entries: int):
+        self.namespace = namespace
+        self.ttl_seconds = ttl_seconds
+        self.max_local_entries = max_local_entries
+        self._local: "OrderedDict[str, Tuple[float, Any]]" = OrderedDict()
+        self._pending_deletes: Set[asyncio.Task] = set()
+        self._failed_deletes: Set[str] = set()  # retried on the next Redis call
+        self._local_generation = 0
+        self._redis_down_until = 0.0
+        self.local_hits = 0
+        self.redis_hits = 0
+        self.misses = 0
+        self.redis_errors = 0
+
+    def _redis_key(self, key: str) -> str:
+        return f"{self.namespace}:{key}"
+
+    @property
+    def _generation_key(self) -> str:
+        return f"{self.namespace}:__generation__"
+
+    # ── local tier ───────────────────────────────────────────────────
+
+    def _local_get(self, key: str) -> Optional[Any]:
+        entry = self._local.get(key)
+        if entry is None:
+            return None
+        expires_at, value = entry
+        if expires_at < time.monotonic():
+            del self._local[key]
+            return None
+        self._local.move_to_end(key)
+        return value
+
+    def _local_set(self, key: str, value: Any, ttl: int) -> None:
+        self._local[key] = (time.monotonic() + ttl, value)
+        self._local.move_to_end(key)
+        while len(self._local) > self.max_local_entries:
+            self._local.popitem(last=False)
+
+    # ── redis tier ───────────────────────────────────────────────────
+
+    def _redis_available(self) -> bool:
+        return time.monotonic() >= self._redis_down_until
+
+    def _redis_failed(self, e: Exception) -> None:
+        self.redis_errors += 1
+        self._redis_down_until = time.monotonic() + REDIS_RETRY_SECONDS
+        logger.warning(f"Redis cache unavailable, using local cache only: {e}")
+
+    async def _redis_get_many(self, keys: Sequence[str]) -> List[Optional[Any]]:
+        if not keys or not self._redis_available():
+            return [None] * len(keys)
+        await self._retry_failed_deletes()
+        try:
+            raw = await get_redis().mget([self._redis_key(k) for k in keys])
+        except Exception as e:
+            self._redis_failed(e)
+            return [None] * len(keys)
+        return [json.loads(r) if r is not None else None for r in raw]
+
+    async def _redis_set_many(self, items: Dict[str, Any], ttl: int) -> None:
+        if not items or not self._redis_available():
+            return
+        try:
+            async with get_redis().pipeline(transaction=False) as pipe:
+                for key, value in items.items():
+                    pipe.set(self._redis_key(key), json.dumps(value), ex=ttl)
+                await pipe.execute()
+        except Exception as e:
+            self._redis_failed(e)
+
+    async def _redis_set_if_generation(
+        self,
+        items: Dict[str, Any],
+        ttl: int,
+        generation: int
+    ) -> bool:
+        """SET items only while the namespace generation still equals ``generation``."""
+        try:
+            async with get_redis().pipeline(transaction=True) as pipe:
+                await pipe.watch(self._generation_key)
+                current = await pipe.get(self._generation_key)
+                if int(current or 0) != generation:
+                    return False
+                pipe.multi()
+                for key, value in items.items():
+                    pipe.set(self._redis_key(key), json.dumps(value), ex=ttl)
+                await pipe.execute()
+            return True
+        except WatchError:
+            return False  # invalidated between the check and EXEC
+        except Exception as e:
+            self._redis_failed(e)
+            return False
+
+    async def _redis_delete_many(self, keys: Sequence[str]) -> None:
+        """Bump the generation and delete keys; attempted even during back-off."""
+        if not keys:
+            return
+        try:
+            async with get_redis().pipeline(transaction=True) as pipe:
+                pipe.incr(self._generation_key)
+                pipe.delete(*[self._redis_key(k) for k in keys])
+                await pipe.execute()
+        except Exception as e:
+            self._failed_deletes.update(keys)
+            self._redis_failed(e)
+        else:
+            self._redis_down_until = 0.0
+
+    async def _retry_failed_deletes(self) -> None:
+        if self._failed_deletes:
+            keys = list(self._failed_deletes)
+            self._failed_deletes.clear()
+            await self._redis_delete_many(keys)
+
+    # ── public API ───────────────────────────────────────────────────
+
+    async def get_many(self, keys: Sequence[str]) -> Dict[str, Any]:
+        """Return cached values for the keys that are present in either tier."""
+        found: Dict[str, Any] = {}
+        remote: List[str] = []
+        for key in keys:
+            value = self._local_get(key)
+            if value is not None:
+                found[key] = value
+                self.local_hits += 1
+            else:
+                remote.append(key)
+
+        for key, value in zip(remote, await self._redis_get_many(remote)):
+            if value is not None:
+                found[key] = value
+                self.redis_hits += 1
+                self._local_set(key, value, self.ttl_seconds)
+            else:
+                self.misses += 1
+        return found
+
+    async def set_many(self, items: Dict[str, Any], ttl: Optional[int] = None) -> None:
+        """Write values to both tiers."""
+        ttl = ttl or self.ttl_seconds
+        for key, value in items.items():
+            self._local_set(key, value, ttl)
+        await self._redis_set_many(items, ttl)
+
+    async def generation(self) -> Tuple[int, Optional[int]]:
+        """
+        Current invalidation generation (local, Redis).
+
+        The Redis part is None when Redis is unavailable; values built
+        under such a token are only cached locally.
+        """
+        if not self._redis_available():
+            return self._local_generation, None
+        await self._retry_failed_deletes()
+        if not self._redis_available():
+            return self._local_generation, None
+        try:
+            current = await get_redis().get(self._generation_key)
+        except Exception as e:
+            self._redis_failed(e)
+            return self._local_generation, None
+        return self._local_generation, int(current or 0)
+
+    async def set_many_if_unchanged(
+        self,
+        items: Dict[str, Any],
+        generation: Tuple[int, Optional[int]],
+        ttl: Optional[int] = None
+    ) -> bool:
+        """
+        Write values only if nothing was invalidated since ``generation()``
+        returned ``generation``. Returns False when the write was skipped.
+        """
+        ttl = ttl or self.ttl_seconds
+        local_generation, redis_generation = generation
+        if local_generation != self._local_generation:
+            return False
+        if redis_generation is not None and self._redis_available():
+            if not await self._redis_set_if_generation(items, ttl, redis_generation):
+                return False
+        # Re-check: an invalidation may have run while Redis was written
+        if local_generation != self._local_generation:
+            return False
+        for key, value in items.items():
+            self._local_set(key, value, ttl)
+        return True
+
+    async def get_or_load(
+        self,
+        key: str,
+        loader: Callable[[], Awaitable[Any]],
+        ttl: Optional[int] = None
+    ) -> Any:
+        """Read-through: return the cached value or load, store and return it."""
+        found = await self.get_many([key])
+        if key in found:
+            return found[key]
+        value = await loader()
+        await self.set_many({key: value}, ttl)
+        return value
+
+    async def delete_many(self, keys: Sequence[str]) -> None:
+        """Drop keys from both tiers."""
+        self._local_generation += 1
+        for key in keys:
+            self._local.pop(key, None)
+        await self._redis_delete_many(keys)
+
+    def invalidate(self, keys: Sequence[str]) -> None:
+        """
+        Drop keys now from the local tier and schedule the Redis delete.
+
+        Safe to call from synchronous code such as after-commit callbacks
+        (see models.base.run_after_commit) while an event loop is running.
+        """
+        self._local_generation += 1
+        for key in keys:
+            self._local.pop(key, None)
+        try:
+            loop = asyncio.get_running_loop()
+        except RuntimeError:
+            self._failed_deletes.update(keys)
+            return
+        task = loop.create_task(self._redis_delete_many(list(keys)))
+        self._pending_deletes.add(task)
+        task.add_done_callback(self._pending_deletes.discard)
+
+    def clear_local(self) -> None:
+        self._local.clear()
+
+    def stats(self) -> Dict[str, Any]:
+        hits = self.local_hits + self.redis_hits
+        lookups = hits + self.misses
+        return {
+            "namespace": self.namespace,
+            "local_entries": len(self._local),
+            "local_hits": self.local_hits,
+            "redis_hits": self.redis_hits,
+            "misses": self.misses,
+            "hit_rate": round(hits / lookups, 4) if lookups else 0.0,
+            "redis_errors": self.redis_errors,
+            "redis_available": self._redis_available(),
+            "ttl_seconds": self.ttl_seconds,
+        }
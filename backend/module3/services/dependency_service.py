@@ -30,6 +30,7 @@ from schemas.dependency import (
     DependencyProfile, ImportSummary, DependencyRiskAnalysis,
     ImportDisruptionScenario
 )
+from services.pagination import Page, paginate
 from config import get_settings
 
 logger = logging.getLogger(__name__)
@@ -206,9 +207,11 @@ class FoodDependencyService:
         risk_level: Optional[RiskLevel] = None,
         min_risk_score: Optional[float] = None,
         limit: int = 100,
-        offset: int = 0
-    ) -> Tuple[List[RegionalDependency], int]:
-        """List regional dependencies with filters."""
+        offset: int = 0,
+        cursor: Optional[str] = None,
+        count: str = "exact"
+    ) -> Page:
+        """List regional dependencies with filters, newest first."""
         query = select(RegionalDependency)
 
         if risk_level:
@@ -216,14 +219,10 @@ class FoodDependencyService:
         if min_risk_score is not None:
             query = query.where(RegionalDependency.risk_score >= min_risk_score)
 
-        count_query = select(func.count()).select_from(query.subquery())
-        total = (await self.db.execute(count_query)).scalar()
-
-        query = query.order_by(RegionalDependency.risk_score.desc())
-        query = query.offset(offset).limit(limit)
-
-        result = await self.db.execute(query)
-        return list(result.scalars().all()), total
+        return await paginate(
+            self.db, query, RegionalDependency,
+            limit=limit, offset=offset, cursor=cursor, count=count
+        )
 
     async def get_dependency_profile(self, region_id: int) -> DependencyProfile:
         """Get comprehensive dependency profile for a region."""
@@ -9,13 +9,13 @@ Handles:
 - Cold chain tracking
 """
 
+import asyncio
 import logging
 from datetime import datetime, timedelta
-from typing import List, Optional, Dict, Any, Tuple
-import numpy as np
+from typing import List, Optional, Dict, Any, Awaitable, Set, Tuple
 from sqlalchemy.ext.asyncio import AsyncSession
-from sqlalchemy import select, func, and_, or_, update
-from sqlalchemy.orm import selectinload
+from sqlalchemy import Select, select, insert, func, and_, or_, update
+from sqlalchemy.orm import selectinload, aliased
 
 from models.distribution import (
     TransportationCorridor, DistributionCenter, TransportRoute,
@@ -23,6 +23,7 @@ from models.distribution import (
     CorridorType, DisruptionType, DisruptionSeverity
 )
 from models.agricultural import Region
+from models.base import run_after_commit
 from schemas.distribution import (
     CorridorCreate, CorridorUpdate, CorridorResponse,
     DistributionCenterCreate, DistributionCenterUpdate, DistributionCenterResponse,
@@ -37,11 +38,20 @@ from schemas.google_maps import (
     SmartRouteOptimizationRequest, OptimizeFor,
 )
 from services.google_maps_service import GoogleMapsService
+from services.spatial_index import center_index
+from services.pagination import Page, paginate
+from services.route_planner import RoutePlanner, EdgeWeighting, PlannedPath, routing_graph
+from services.event_bus import (
+    event_bus, disruption_event, DISRUPTION_CREATED, DISRUPTION_RESOLVED
+)
 from config import get_settings
 
 logger = logging.getLogger(__name__)
 settings = get_settings()
 
+# Distance Matrix tiles: 10 x 10 = 100 elements, the per-request API limit
+MATRIX_TILE_SIZE = 10
+
 
 class DistributionNetworkService:
     """Service for distribution network management and analysis."""
@@ -75,9 +85,11 @@ class DistributionNetworkService:
         region_id: Optional[int] = None,
         is_active: bool = True,
         limit: int = 100,
-        offset: int = 0
-    ) -> Tuple[List[TransportationCorridor], int]:
-        """List transportation corridors."""
+        offset: int = 0,
+        cursor: Optional[str] = None,
+        count: str = "exact"
+    ) -> Page:
+        """List transportation corridors, newest first."""
         query = select(TransportationCorridor).where(
             TransportationCorridor.is_active == is_active
         )
@@ -92,14 +104,10 @@ class DistributionNetworkService:
                 )
             )
 
-        count_query = select(func.count()).select_from(query.subquery())
-        total = (await self.db.execute(count_query)).scalar()
-
-        query = query.offset(offset).limit(limit)
-        result = await self.db.execute(query)
-        corridors = result.scalars().all()
-
-        return list(corridors), total
+        return await paginate(
+            self.db, query, TransportationCorridor,
+            limit=limit, offset=offset, cursor=cursor, count=count
+        )
 
     async def update_corridor(
         self,
@@ -117,6 +125,7 @@ class DistributionNetworkService:
 
         await self.db.flush()
         await self.db.refresh(corridor)
+        self._invalidate_routing_graph(corridor_ids=[corridor.id])
         return corridor
 
     # ==================== Distribution Centers ====================
@@ -130,6 +139,7 @@ class DistributionNetworkService:
         self.db.add(center)
         await self.db.flush()
         await self.db.refresh(center)
+        run_after_commit(self.db, lambda: center_index.upsert(center))
         logger.info(f"Created distribution center: {center.name}")
         return center
 
@@ -151,9 +161,11 @@ class DistributionNetworkService:
         operational_status: Optional[str] = None,
         is_active: bool = True,
         limit: int = 100,
-        offset: int = 0
-    ) -> Tuple[List[DistributionCenter], int]:
-        """List distribution centers."""
+        offset: int = 0,
+        cursor: Optional[str] = None,
+        count: str = "exact"
+    ) -> Page:
+        """List distribution centers, newest first."""
         query = select(DistributionCenter).where(
             DistributionCenter.is_active == is_active
         )
@@ -165,14 +177,10 @@ class DistributionNetworkService:
                 DistributionCenter.operational_status == operational_status
             )
 
-        count_query = select(func.count()).select_from(query.subquery())
-        total = (await self.db.execute(count_query)).scalar()
-
-        query = query.offset(offset).limit(limit)
-        result = await self.db.execute(query)
-        centers = result.scalars().all()
-
-        return list(centers), total
+        return await paginate(
+            self.db, query, DistributionCenter,
+            limit=limit, offset=offset, cursor=cursor, count=count
+        )
 
     async def update_distribution_center(
         self,
@@ -198,6 +206,7 @@ class DistributionNetworkService:
 
         await self.db.flush()
         await self.db.refresh(center)
+        run_after_commit(self.db, lambda: center_index.upsert(center))
         return center
 
     async def get_centers_near_location(
@@ -207,53 +216,22 @@ class DistributionNetworkService:
         radius_km: float = 50,
         limit: int = 10
     ) -> List[Dict[str, Any]]:
-        """Find distribution centers near a location."""
-        # Simple distance calculation (Haversine approximation)
-        # In production, use PostGIS for accurate geospatial queries
-        centers_result = await self.db.execute(
-            select(DistributionCenter).where(
-                and_(
-                    DistributionCenter.is_active == True,
-                    DistributionCenter.operational_status == "operational"
-                )
-            )
-        )
-        centers = centers_result.scalars().all()
-
-        nearby = []
-        for center in centers:
-            distance = self._calculate_distance(
-                latitude, longitude,
-                center.latitude, center.longitude
-            )
-            if distance <= radius_km:
-                nearby.append({
-                    "center": center,
-                    "distance_km": distance
-                })
-
-        nearby.sort(key=lambda x: x["distance_km"])
-        return nearby[:limit]
+        """Find distribution centers near a location (served from the spatial index)."""
+        await center_index.ensure_loaded(self.db)
+        return center_index.query_radius(latitude, longitude, radius_km, limit=limit)
 
-    def _calculate_distance(
+    async def get_nearest_centers(
         self,
-        lat1: float, lon1: float,
-        lat2: float, lon2: float
-    ) -> float:
-        """Calculate distance between two points (Haversine formula)."""
-        R = 6371  # Earth's radius in km
-
-        lat1_rad = np.radians(lat1)
-        lat2_rad = np.radians(lat2)
-        delta_lat = np.radians(lat2 - lat1)
-        delta_lon = np.radians(lon2 - lon1)
-
-        a = (np.sin(delta_lat / 2) ** 2 +
-             np.cos(lat1_rad) * np.cos(lat2_rad) *
-             np.sin(delta_lon / 2) ** 2)
-        c = 2 * np.arctan2(np.sqrt(a), np.sqrt(1 - a))
-
-        return R * c
+        latitude: float,
+        longitude: float,
+        k: int = 5,
+        max_distance_km: Optional[float] = None
+    ) -> List[Dict[str, Any]]:
+        """Find the k nearest distribution centers to a location."""
+        await center_index.ensure_loaded(self.db)
+        return center_index.query_nearest(
+            latitude, longitude, k, max_distance_km=max_distance_km
+        )
 
     # ==================== Transport Routes ====================
 
@@ -272,6 +250,7 @@ class DistributionNetworkService:
         self.db.add(route)
         await self.db.flush()
         await self.db.refresh(route)
+        self._invalidate_routing_graph(route_ids=[route.id])
         logger.info(f"Created route: {route.name}")
         return route
 
@@ -291,6 +270,25 @@ class DistributionNetworkService:
         is_active: bool = True
     ) -> List[TransportRoute]:
         """List transport routes."""
+        query = self.list_routes_query(
+            origin_region_id=origin_region_id,
+            destination_region_id=destination_region_id,
+            corridor_id=corridor_id,
+            cold_chain_capable=cold_chain_capable,
+            is_active=is_active
+        )
+        result = await self.db.execute(query)
+        return list(result.scalars().all())
+
+    @staticmethod
+    def list_routes_query(
+        origin_region_id: Optional[int] = None,
+        destination_region_id: Optional[int] = None,
+        corridor_id: Optional[int] = None,
+        cold_chain_capable: Optional[bool] = None,
+        is_active: bool = True
+    ) -> Select:
+        """Filtered route query (used directly by the streaming endpoint)."""
         query = select(TransportRoute).where(
             TransportRoute.is_active == is_active
         )
@@ -304,8 +302,7 @@ class DistributionNetworkService:
         if cold_chain_capable is not None:
             query = query.where(TransportRoute.cold_chain_capable == cold_chain_capable)
 
-        result = await self.db.execute(query)
-        return list(result.scalars().all())
+        return query.order_by(TransportRoute.id)
 
     async def find_routes_between_regions(
         self,
@@ -342,6 +339,11 @@ class DistributionNetworkService:
 
         # Update affected routes/corridors status
         await self._update_affected_infrastructure(disruption)
+        self._invalidate_routing_graph(
+            route_ids=[disruption.route_id],
+            corridor_ids=[disruption.corridor_id]
+        )
+        event_bus.publish_after_commit(self.db, disruption_event(DISRUPTION_CREATED, disruption))
 
         logger.warning(
             f"Disruption created: {disruption.title} "
@@ -439,10 +441,27 @@ class DistributionNetworkService:
 
         await self.db.flush()
         await self.db.refresh(disruption)
+        self._invalidate_routing_graph(
+            route_ids=[disruption.route_id],
+            corridor_ids=[disruption.corridor_id]
+        )
+        event_bus.publish_after_commit(self.db, disruption_event(DISRUPTION_RESOLVED, disruption))
 
         logger.info(f"Disruption resolved: {disruption.title}")
         return disruption
 
+    def _invalidate_routing_graph(
+        self,
+        route_ids: List[Optional[int]] = (),
+        corridor_ids: List[Optional[int]] = ()
+    ) -> None:
+        """Refresh the given routes/corridors in the shared graph once committed."""
+        route_ids, corridor_ids = list(route_ids), list(corridor_ids)
+        run_after_commit(
+            self.db,
+            lambda: routing_graph.invalidate(route_ids, corridor_ids)
+        )
+
     async def get_disruption_summary(self) -> ActiveDisruptionSummary:
         """Get summary of active disruptions."""
         disruptions = await self.list_active_disruptions()
@@ -483,149 +502,77 @@ class DistributionNetworkService:
         self,
         request: RouteOptimizationRequest
     ) -> RouteOptimizationResponse:
-        """Find optimal routes between regions."""
-        # Get available routes
-        routes = await self.find_routes_between_regions(
-            origin_region_id=request.origin_region_id,
-            destination_region_id=request.destination_region_id,
-            include_disrupted=not request.avoid_disruptions
+        """Find optimal (possibly multi-leg) routes between regions."""
+        planner = await routing_graph.get(self.db)
+        weighting = EdgeWeighting(
+            cargo_tonnes=request.cargo_tonnes,
+            requires_cold_chain=request.requires_cold_chain,
+            include_disrupted=not request.avoid_disruptions,
         )
 
-        if not routes:
-            # Try to find indirect routes
-            routes = await self._find_indirect_routes(
-                request.origin_region_id,
-                request.destination_region_id
-            )
+        paths = planner.k_shortest_paths(
+            request.origin_region_id,
+            request.destination_region_id,
+            k=request.max_alternatives,
+            weighting=weighting,
+        )
 
-        if not routes:
+        if not paths:
+            if request.requires_cold_chain:
+                weighting.requires_cold_chain = False
+                if planner.k_shortest_paths(
+                    request.origin_region_id,
+                    request.destination_region_id,
+                    k=1,
+                    weighting=weighting,
+                ):
+                    raise ValueError("No cold chain capable routes available")
             raise ValueError("No routes available between specified regions")
 
-        # Filter for cold chain if required
-        if request.requires_cold_chain:
-            routes = [r for r in routes if r.cold_chain_capable]
-            if not routes:
-                raise ValueError("No cold chain capable routes available")
-
-        # Score and rank routes
-        scored_routes = []
-        for route in routes:
-            score = self._score_route(route, request)
-            scored_routes.append((route, score))
-
-        scored_routes.sort(key=lambda x: x[1], reverse=True)
-
-        # Get active disruptions for risk assessment
-        disruptions = await self.list_active_disruptions()
-        disruption_routes = {d.route_id for d in disruptions if d.route_id}
-
-        # Build response
-        optimized_routes = []
-        for route, score in scored_routes[:request.max_alternatives]:
-            disruption_risk = 0.5 if route.id in disruption_routes else 0.1
-            optimized_routes.append(OptimizedRoute(
-                route_id=route.id,
-                route_name=route.name,
-                distance_km=route.distance_km or 0,
-                estimated_time_hours=route.estimated_time_hours or 0,
-                estimated_cost=route.total_cost or 0,
-                cold_chain_capable=route.cold_chain_capable,
-                disruption_risk=disruption_risk,
-                waypoints=[]  # Would include actual waypoints in production
-            ))
+        optimized_routes = [
+            self._path_to_optimized_route(planner, path, planner.disrupted_route_ids)
+            for path in paths
+        ]
 
-        # Get region names
-        origin = await self.db.execute(
-            select(Region).where(Region.id == request.origin_region_id)
-        )
-        dest = await self.db.execute(
-            select(Region).where(Region.id == request.destination_region_id)
-        )
-        origin_region = origin.scalar_one_or_none()
-        dest_region = dest.scalar_one_or_none()
+        origin_name = planner.region_name(request.origin_region_id)
+        dest_name = planner.region_name(request.destination_region_id)
 
         return RouteOptimizationResponse(
-            origin=origin_region.name if origin_region else str(request.origin_region_id),
-            destination=dest_region.name if dest_region else str(request.destination_region_id),
+            origin=origin_name or str(request.origin_region_id),
+            destination=dest_name or str(request.destination_region_id),
             cargo_tonnes=request.cargo_tonnes,
-            recommended_route=optimized_routes[0] if optimized_routes else None,
-            alternative_routes=optimized_routes[1:] if len(optimized_routes) > 1 else [],
+            recommended_route=optimized_routes[0],
+            alternative_routes=optimized_routes[1:],
             analysis_timestamp=datetime.utcnow()
         )
 
-    def _score_route(
-        self,
-        route: TransportRoute,
-        request: RouteOptimizationRequest
-    ) -> float:
-        """Score a route based on multiple factors."""
-        score = 100.0
-
-        # Time factor (faster is better)
-        if route.estimated_time_hours:
-            score -= route.estimated_time_hours * 2
-
-        # Cost factor
-        if route.total_cost:
-            score -= route.total_cost / 100
-
-        # Capacity check
-        if route.daily_capacity_tonnes and route.daily_capacity_tonnes < request.cargo_tonnes:
-            score -= 30  # Penalty for insufficient capacity
-
-        # Primary route bonus
-        if route.is_primary_route:
-            score += 10
-
-        # Cold chain bonus if needed
-        if request.requires_cold_chain and route.cold_chain_capable:
-            score += 15
-
-        # Operational status
-        if route.operational_status != "operational":
-            score -= 25
-
-        return max(0, score)
-
-    async def _find_indirect_routes(
+    def _path_to_optimized_route(
         self,
-        origin_region_id: int,
-        destination_region_id: int,
-        max_hops: int = 2
-    ) -> List[TransportRoute]:
-        """Find indirect routes through intermediate regions."""
-        # Get routes from origin
-        from_origin = await self.db.execute(
-            select(TransportRoute).where(
-                and_(
-                    TransportRoute.origin_region_id == origin_region_id,
-                    TransportRoute.is_active == True
-                )
-            )
+        planner: RoutePlanner,
+        path: PlannedPath,
+        disruption_routes: set
+    ) -> OptimizedRoute:
+        """Convert a planned path into the API representation."""
+        # Probability that at least one leg is disrupted
+        clear = 1.0
+        for edge in path.edges:
+            clear *= 1 - (0.5 if edge.route_id in disruption_routes else 0.1)
+
+        first = path.edges[0]
+        return OptimizedRoute(
+            route_id=first.route_id,
+            route_name=(
+                first.name if len(path.edges) == 1
+                else " + ".join(e.name for e in path.edges)
+            ),
+            distance_km=path.distance_km,
+            estimated_time_hours=path.estimated_time_hours,
+            estimated_cost=path.total_cost,
+            cold_chain_capable=path.cold_chain_capable,
+            disruption_risk=round(1 - clear, 3),
+            waypoints=planner.waypoints(path),
+            leg_route_ids=list(path.edge_ids),
         )
-        origin_routes = from_origin.scalars().all()
-
-        indirect_routes = []
-
-        for route in origin_routes:
-            # Check if we can reach destination from this intermediate
-            intermediate_id = route.destination_region_id
-            to_dest = await self.db.execute(
-                select(TransportRoute).where(
-                    and_(
-                        TransportRoute.origin_region_id == intermediate_id,
-                        TransportRoute.destination_region_id == destination_region_id,
-                        TransportRoute.is_active == True
-                    )
-                )
-            )
-            connecting_routes = to_dest.scalars().all()
-
-            for connecting in connecting_routes:
-                # Create a virtual combined route
-                indirect_routes.append(route)  # Simplified; would combine in production
-
-        return indirect_routes
 
     # ==================== Cold Chain Management ====================
 
@@ -691,6 +638,14 @@ class DistributionNetworkService:
         """
         Auto-generate TransportRoute records between distribution centers
         using Google Maps Directions API for real distance/duration data.
+
+        Existing pairs are prefetched in one query, Google Maps calls fan
+        out under ``route_generation_concurrency`` (and the Google Maps token
+        bucket), and new routes are bulk-inserted in a single statement.
+
+        With ``use_distance_matrix`` the distance/duration of every pair is
+        read from Distance Matrix tiles, and Directions (polyline) is only
+        requested for pairs that are persisted.
         """
         maps_service = GoogleMapsService()
 
@@ -705,28 +660,54 @@ class DistributionNetworkService:
         # Cap to max_routes
         pairs = pairs[: request.max_routes]
 
+        existing_pairs = await self._get_existing_center_pairs([c.id for c in centers])
+
+        todo = [(o, d) for o, d in pairs if (o.id, d.id) not in existing_pairs]
+        semaphore = asyncio.Semaphore(settings.route_generation_concurrency)
+
+        if request.use_distance_matrix:
+            directions_by_pair = await self._matrix_metrics_for_pairs(
+                maps_service, todo, semaphore
+            )
+            if request.fetch_polylines:
+                await self._attach_polylines(
+                    maps_service, todo, directions_by_pair, semaphore
+                )
+        else:
+            fetched = await asyncio.gather(*(
+                self._limited(semaphore, maps_service.get_directions(
+                    o.latitude, o.longitude, d.latitude, d.longitude,
+                ))
+                for o, d in todo
+            ))
+            directions_by_pair = {
+                (o.id, d.id): result for (o, d), result in zip(todo, fetched)
+            }
+
+        # Bulk insert successful pairs
+        to_create = [
+            (o, d, directions_by_pair[(o.id, d.id)]) for o, d in todo
+            if not isinstance(directions_by_pair[(o.id, d.id)], Exception)
+        ]
+        route_ids = await self._bulk_create_routes_from_directions(to_create)
+
         results: List[AutoRouteResult] = []
         routes_created = 0
         routes_skipped = 0
 
         for origin, dest in pairs:
-            # Check for existing route
-            existing = await self.db.execute(
-                select(TransportRoute).where(
-                    and_(
-                        TransportRoute.origin_center_id == origin.id,
-                        TransportRoute.destination_center_id == dest.id,
-                        TransportRoute.is_active == True,
-                    )
-                )
+            key = (origin.id, dest.id)
+            base = dict(
+                origin_center_id=origin.id,
+                origin_center_name=origin.name,
+                destination_center_id=dest.id,
+                destination_center_name=dest.name,
             )
-            if existing.scalar_one_or_none():
+
+            if key in existing_pairs:
                 routes_skipped += 1
                 results.append(AutoRouteResult(
-                    origin_center_id=origin.id,
-                    origin_center_name=origin.name,
-                    destination_center_id=dest.id,
-                    destination_center_name=dest.name,
+                    **base,
                     distance_km=0,
                     duration_hours=0,
                     saved=False,
@@ -734,37 +715,26 @@ class DistributionNetworkService:
                 ))
                 continue
 
-            try:
-                directions = await maps_service.get_directions(
-                    origin.latitude, origin.longitude,
-                    dest.latitude, dest.longitude,
-                )
-            except Exception as e:
+            directions = directions_by_pair[key]
+            if isinstance(directions, Exception):
                 routes_skipped += 1
                 results.append(AutoRouteResult(
-                    origin_center_id=origin.id,
-                    origin_center_name=origin.name,
-                    destination_center_id=dest.id,
-                    destination_center_name=dest.name,
+                    **base,
                     distance_km=0,
                     duration_hours=0,
                     saved=False,
-                    skipped_reason=f"Google Maps error: {e}",
+                    skipped_reason=f"Google Maps error: {directions}",
                 ))
                 continue
 
-            route = await self._create_route_from_directions(origin, dest, directions)
             routes_created += 1
             results.append(AutoRouteResult(
-                origin_center_id=origin.id,
-                origin_center_name=origin.name,
-                destination_center_id=dest.id,
-                destination_center_name=dest.name,
+                **base,
                 distance_km=directions["distance_km"],
                 duration_hours=directions["duration_hours"],
                 polyline=directions.get("polyline", ""),
                 saved=True,
-                route_id=route.id,
+                route_id=route_ids[key],
             ))
 
         return AutoRouteGenerateResponse(
@@ -774,33 +744,162 @@ class DistributionNetworkService:
             results=results,
         )
 
-    async def _create_route_from_directions(
+    @staticmethod
+    async def _limited(semaphore: asyncio.Semaphore, call: Awaitable[Any]) -> Any:
+        """Await call under the semaphore; exceptions are returned, not raised."""
+        async with semaphore:
+            try:
+                return await call
+            except Exception as e:
+                return e
+
+    async def _matrix_metrics_for_pairs(
         self,
-        origin: DistributionCenter,
-        dest: DistributionCenter,
-        directions: Dict[str, Any],
-    ) -> TransportRoute:
-        """Create a TransportRoute record from Google Maps directions data."""
-        route_code = f"AR-{origin.center_code}-{dest.center_code}"
-
-        route = TransportRoute(
-            name=f"{origin.name} -> {dest.name}",
-            route_code=route_code,
-            origin_center_id=origin.id,
-            destination_center_id=dest.id,
-            origin_region_id=origin.region_id,
-            destination_region_id=dest.region_id,
-            distance_km=directions["distance_km"],
-            estimated_time_hours=directions["duration_hours"],
-            path_geometry={"polyline": directions.get("polyline", "")},
-            operational_status="operational",
-            is_active=True,
+        maps_service: GoogleMapsService,
+        pairs: List[Tuple[DistributionCenter, DistributionCenter]],
+        semaphore: asyncio.Semaphore,
+    ) -> Dict[Tuple[int, int], Any]:
+        """
+        Distance/duration for each pair from Distance Matrix tiles.
+
+        Pairs are grouped into origin-block x destination-block tiles of at
+        most MATRIX_TILE_SIZE per side, so each request stays within the
+        API's per-request element limit. Values are result dicts, or an
+        Exception for pairs the API could not route.
+        """
+        tile_size = MATRIX_TILE_SIZE
+        origin_pos: Dict[int, int] = {}
+        dest_pos: Dict[int, int] = {}
+        tiles: Dict[Tuple[int, int], List[Tuple[DistributionCenter, DistributionCenter]]] = {}
+        for origin, dest in pairs:
+            oi = origin_pos.setdefault(origin.id, len(origin_pos))
+            di = dest_pos.setdefault(dest.id, len(dest_pos))
+            tiles.setdefault((oi // tile_size, di // tile_size), []).append((origin, dest))
+
+        async def fetch_tile(tile_pairs):
+            origins = list({o.id: o for o, _ in tile_pairs}.values())
+            dests = list({d.id: d for _, d in tile_pairs}.values())
+            matrix = await maps_service.get_distance_matrix(
+                [{"lat": o.latitude, "lon": o.longitude} for o in origins],
+                [{"lat": d.latitude, "lon": d.longitude} for d in dests],
+            )
+            o_idx = {o.id: i for i, o in enumerate(origins)}
+            d_idx = {d.id: j for j, d in enumerate(dests)}
+            return {
+                (o.id, d.id): matrix["rows"][o_idx[o.id]]["elements"][d_idx[d.id]]
+                for o, d in tile_pairs
+            }
+
+        tile_list = list(tiles.values())
+        fetched = await asyncio.gather(*(
+            self._limited(semaphore, fetch_tile(t)) for t in tile_list
+        ))
+        logger.info(
+            f"Distance matrix: {len(pairs)} pairs in {len(tile_list)} tile requests"
         )
-        self.db.add(route)
-        await self.db.flush()
-        await self.db.refresh(route)
-        logger.info(f"Auto-created route: {route.name} ({route.route_code})")
-        return route
+
+        metrics: Dict[Tuple[int, int], Any] = {}
+        for tile_pairs, result in zip(tile_list, fetched):
+            for origin, dest in tile_pairs:
+                key = (origin.id, dest.id)
+                if isinstance(result, Exception):
+                    metrics[key] = result
+                    continue
+                element = result[key]
+                if element["status"] != "OK":
+                    metrics[key] = ValueError(f"Distance Matrix status {element['status']}")
+                    continue
+                metrics[key] = {
+                    "distance_km": element["distance_km"],
+                    "duration_hours": element["duration_hours"],
+                    "polyline": "",
+                }
+        return metrics
+
+    async def _attach_polylines(
+        self,
+        maps_service: GoogleMapsService,
+        pairs: List[Tuple[DistributionCenter, DistributionCenter]],
+        metrics: Dict[Tuple[int, int], Any],
+        semaphore: asyncio.Semaphore,
+    ) -> None:
+        """Fetch Directions polylines for pairs that will be persisted."""
+        persist = [
+            (o, d) for o, d in pairs
+            if not isinstance(metrics[(o.id, d.id)], Exception)
+        ]
+        fetched = await asyncio.gather(*(
+            self._limited(semaphore, maps_service.get_directions(
+                o.latitude, o.longitude, d.latitude, d.longitude,
+            ))
+            for o, d in persist
+        ))
+        for (origin, dest), directions in zip(persist, fetched):
+            if isinstance(directions, Exception):
+                logger.warning(
+                    f"Directions failed for {origin.name} -> {dest.name}, "
+                    f"saving matrix distance without polyline: {directions}"
+                )
+                continue
+            metrics[(origin.id, dest.id)]["polyline"] = directions.get("polyline", "")
+
+    async def _get_existing_center_pairs(
+        self, center_ids: List[int]
+    ) -> Set[Tuple[int, int]]:
+        """All active (origin_center_id, destination_center_id) pairs among centers."""
+        result = await self.db.execute(
+            select(
+                TransportRoute.origin_center_id,
+                TransportRoute.destination_center_id
+            ).where(
+                and_(
+                    TransportRoute.is_active == True,
+                    TransportRoute.origin_center_id.in_(center_ids),
+                    TransportRoute.destination_center_id.in_(center_ids),
+                )
+            )
+        )
+        return {(o, d) for o, d in result.all()}
+
+    async def _bulk_create_routes_from_directions(
+        self,
+        items: List[Tuple[DistributionCenter, DistributionCenter, Dict[str, Any]]],
+    ) -> Dict[Tuple[int, int], int]:
+        """Insert TransportRoute rows from Google Maps directions in one statement."""
+        if not items:
+            return {}
+
+        rows = [
+            {
+                "name": f"{origin.name} -> {dest.name}",
+                "route_code": f"AR-{origin.center_code}-{dest.center_code}",
+                "origin_center_id": origin.id,
+                "destination_center_id": dest.id,
+                "origin_region_id": origin.region_id,
+                "destination_region_id": dest.region_id,
+                "distance_km": directions["distance_km"],
+                "estimated_time_hours": directions["duration_hours"],
+                "path_geometry": {"polyline": directions.get("polyline", "")},
+                "operational_status": "operational",
+                "is_active": True,
+            }
+            for origin, dest, directions in items
+        ]
+
+        result = await self.db.execute(
+            insert(TransportRoute).returning(
+                TransportRoute.id, sort_by_parameter_order=True
+            ),
+            rows,
+        )
+        ids = list(result.scalars().all())
+        self._invalidate_routing_graph(route_ids=ids)
+        logger.info(f"Auto-created {len(ids)} routes")
+
+        return {
+            (origin.id, dest.id): route_id
+            for (origin, dest, _), route_id in zip(items, ids)
+        }
 
     async def _get_centers_for_route_generation(
         self, request: AutoRouteGenerateRequest
@@ -870,18 +969,15 @@ class DistributionNetworkService:
         if not routes:
             raise ValueError("No routes available between specified regions")
 
-        # Collect origin/dest coordinates for Distance Matrix call
-        origins_coords = []
-        dests_coords = []
-        for route in routes:
-            o_lat, o_lon = await self._get_route_origin_coords(route)
-            d_lat, d_lon = await self._get_route_dest_coords(route)
-            origins_coords.append({"lat": o_lat, "lon": o_lon})
-            dests_coords.append({"lat": d_lat, "lon": d_lon})
+        # Resolve endpoint coordinates; routes without them keep stored data
+        coords = await self._get_route_endpoint_coords([r.id for r in routes])
+        priced_ids = [r.id for r in routes if r.id in coords]
 
-        # Call Distance Matrix for real data
+        # One Distance Matrix element per route (origin -> its own destination)
         try:
-            matrix = await maps_service.get_distance_matrix(origins_coords, dests_coords)
+            elements = await maps_service.get_paired_distances(
+                [coords[route_id] for route_id in priced_ids]
+            )
         except Exception as e:
             logger.warning(f"Google Maps Distance Matrix failed, falling back: {e}")
             fallback_request = RouteOptimizationRequest(
@@ -895,23 +991,26 @@ class DistributionNetworkService:
             return await self.optimize_route(fallback_request)
 
         # Enrich routes with real data and score
-        disruptions = await self.list_active_disruptions()
-        disruption_routes = {d.route_id for d in disruptions if d.route_id}
+        planner = await routing_graph.get(self.db)
+        disruption_routes = planner.disrupted_route_ids
+        element_by_route = dict(zip(priced_ids, elements))
 
         scored_routes = []
-        for idx, route in enumerate(routes):
-            # Use diagonal element (same-index origin to dest)
-            if idx < len(matrix["rows"]):
-                row = matrix["rows"][idx]
-                if idx < len(row["elements"]):
-                    element = row["elements"][idx]
-                    if element["status"] == "OK":
-                        route.distance_km = element["distance_km"]
-                        route.estimated_time_hours = element["duration_hours"]
+        enriched_ids = []
+        for route in routes:
+            element = element_by_route.get(route.id)
+            if element and element["status"] == "OK":
+                route.distance_km = element["distance_km"]
+                route.estimated_time_hours = element["duration_hours"]
+                enriched_ids.append(route.id)
 
             score = self._score_route_smart(route, request)
             scored_routes.append((route, score))
 
+        # Enriched distances are persisted with the request's transaction
+        if enriched_ids:
+            self._invalidate_routing_graph(route_ids=enriched_ids)
+
         scored_routes.sort(key=lambda x: x[1], reverse=True)
 
         # Build response
@@ -929,16 +1028,12 @@ class DistributionNetworkService:
                 waypoints=[],
             ))
 
-        origin_region = (await self.db.execute(
-            select(Region).where(Region.id == request.origin_region_id)
-        )).scalar_one_or_none()
-        dest_region = (await self.db.execute(
-            select(Region).where(Region.id == request.destination_region_id)
-        )).scalar_one_or_none()
+        origin_name = planner.region_name(request.origin_region_id)
+        dest_name = planner.region_name(request.destination_region_id)
 
         return RouteOptimizationResponse(
-            origin=origin_region.name if origin_region else str(request.origin_region_id),
-            destination=dest_region.name if dest_region else str(request.destination_region_id),
+            origin=origin_name or str(request.origin_region_id),
+            destination=dest_name or str(request.destination_region_id),
             cargo_tonnes=request.cargo_tonnes,
             recommended_route=optimized_routes[0] if optimized_routes else None,
             alternative_routes=optimized_routes[1:] if len(optimized_routes) > 1 else [],
@@ -983,33 +1078,40 @@ class DistributionNetworkService:
 
         return max(0, score)
 
-    async def _get_route_origin_coords(self, route: TransportRoute) -> tuple:
-        """Get origin coordinates for a route (from center or region)."""
-        if route.origin_center_id:
-            center = await self.get_distribution_center(route.origin_center_id)
-            if center:
-                return center.latitude, center.longitude
-        if route.origin_region_id:
-            region = (await self.db.execute(
-                select(Region).where(Region.id == route.origin_region_id)
-            )).scalar_one_or_none()
-            if region:
-                return region.latitude, region.longitude
-        return 0.0, 0.0
-
-    async def _get_route_dest_coords(self, route: TransportRoute) -> tuple:
-        """Get destination coordinates for a route (from center or region)."""
-        if route.destination_center_id:
-            center = await self.get_distribution_center(route.destination_center_id)
-            if center:
-                return center.latitude, center.longitude
-        if route.destination_region_id:
-            region = (await self.db.execute(
-                select(Region).where(Region.id == route.destination_region_id)
-            )).scalar_one_or_none()
-            if region:
-                return region.latitude, region.longitude
-        return 0.0, 0.0
+    async def _get_route_endpoint_coords(
+        self, route_ids: List[int]
+    ) -> Dict[int, Tuple[Dict[str, float], Dict[str, float]]]:
+        """
+        Origin/destination coordinates for many routes in one query.
+
+        Each endpoint uses its distribution center when set, otherwise its
+        region. Routes with an unresolvable endpoint are omitted.
+        """
+        origin_center = aliased(DistributionCenter)
+        dest_center = aliased(DistributionCenter)
+        origin_region = aliased(Region)
+        dest_region = aliased(Region)
+
+        result = await self.db.execute(
+            select(
+                TransportRoute.id,
+                func.coalesce(origin_center.latitude, origin_region.latitude),
+                func.coalesce(origin_center.longitude, origin_region.longitude),
+                func.coalesce(dest_center.latitude, dest_region.latitude),
+                func.coalesce(dest_center.longitude, dest_region.longitude),
+            )
+            .outerjoin(origin_center, origin_center.id == TransportRoute.origin_center_id)
+            .outerjoin(origin_region, origin_region.id == TransportRoute.origin_region_id)
+            .outerjoin(dest_center, dest_center.id == TransportRoute.destination_center_id)
+            .outerjoin(dest_region, dest_region.id == TransportRoute.destination_region_id)
+            .where(TransportRoute.id.in_(route_ids))
+        )
+
+        return {
+            route_id: ({"lat": o_lat, "lon": o_lon}, {"lat": d_lat, "lon": d_lon})
+            for route_id, o_lat, o_lon, d_lat, d_lon in result.all()
+            if None not in (o_lat, o_lon, d_lat, d_lon)
+        }
 
     # ==================== Network Status ====================
 
@@ -0,0 +1,254 @@
+"""
+Live Event Bus
+
+In-process pub/sub for alert, disruption and fire-job events, fanned out
+across app workers through a Redis channel. Writers publish after their
+transaction commits (``publish_after_commit``); every worker's listener
+receives the event from Redis and hands it to its local subscribers
+(SSE connections, see api/events.py).
+
+If Redis is unavailable events are delivered to the publishing worker's
+own subscribers only. Each subscriber has a bounded queue; a client that
+stops reading loses its oldest events rather than stalling publishers.
+"""
+
+import asyncio
+import json
+import logging
+import uuid
+from dataclasses import dataclass
+from datetime import datetime
+from typing import Any, Dict, FrozenSet, Optional, Set
+
+import redis.asyncio as redis
+from sqlalchemy.ext.asyncio import AsyncSession
+
+from models.base import run_after_commit
+from services.cache import get_redis
+from services.subscription_index import level_rank
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+EVENTS_CHANNEL = "sentinel:events"
+RECONNECT_SECONDS = 5
+
+# Event types
+ALERT_CREATED = "alert.created"
+ALERT_UPDATED = "alert.updated"
+ALERT_ESCALATED = "alert.escalated"
+ALERT_RESOLVED = "alert.resolved"
+DISRUPTION_CREATED = "disruption.created"
+DISRUPTION_RESOLVED = "disruption.resolved"
+FIRE_STEP_COMPLETED = "fire.step_completed"
+FIRE_COMPLETED = "fire.completed"
+FIRE_FAILED = "fire.failed"
+
+
+def _value(v: Any) -> Any:
+    return v.value if hasattr(v, "value") else v
+
+
+def alert_event(event_type: str, alert: Any) -> Dict[str, Any]:
+    """Event for a ShortageAlert (carries the fields clients filter on)."""
+    return {
+        "type": event_type,
+        "data": {
+            "id": alert.id,
+            "alert_code": alert.alert_code,
+            "region_id": alert.region_id,
+            "category_id": alert.category_id,
+            "alert_type": _value(alert.alert_type),
+            "alert_level": _value(alert.alert_level),
+            "status": _value(alert.status),
+            "title": alert.title,
+            "days_until_shortage": alert.days_until_shortage,
+            "escalation_level": alert.escalation_level,
+        },
+    }
+
+
+def disruption_event(event_type: str, disruption: Any) -> Dict[str, Any]:
+    """Event for a RouteDisruption."""
+    return {
+        "type": event_type,
+        "data": {
+            "id": disruption.id,
+            "region_id": disruption.region_id,
+            "route_id": disruption.route_id,
+            "corridor_id": disruption.corridor_id,
+            "disruption_type": _value(disruption.disruption_type),
+            "severity": _value(disruption.severity),
+            "title": disruption.title,
+            "is_active": disruption.is_active,
+        },
+    }
+
+
+def fire_event(event_type: str, scenario_id: str, **data: Any) -> Dict[str, Any]:
+    """Progress event for a fire scenario job."""
+    return {"type": event_type, "data": {"scenario_id": scenario_id, **data}}
+
+
+@dataclass(frozen=True)
+class EventFilter:
+    """
+    Per-client filter with AlertSubscription semantics: an empty field
+    means "any". Region applies to alerts and disruptions; category, alert
+    type and minimum level apply to alerts only; scenario_id to fire jobs.
+    """
+    event_types: Optional[FrozenSet[str]] = None
+    region_ids: Optional[FrozenSet[int]] = None
+    category_ids: Optional[FrozenSet[int]] = None
+    alert_types: Optional[FrozenSet[str]] = None
+    minimum_alert_level: Optional[str] = None
+    scenario_id: Optional[str] = None
+
+    def matches(self, event: Dict[str, Any]) -> bool:
+        data = event["data"]
+        if self.event_types and event["type"] not in self.event_types:
+            return False
+        if self.region_ids and data.get("region_id") not in self.region_ids:
+            return False
+        if self.scenario_id and data.get("scenario_id") != self.scenario_id:
+            return False
+        if not event["type"].startswith("alert."):
+            return True
+        if self.category_ids and data.get("category_id") not in self.category_ids:
+            return False
+        if self.alert_types and data.get("alert_type") not in self.alert_types:
+            return False
+        if self.minimum_alert_level and (
+            level_rank(data.get("alert_level")) < level_rank(self.minimum_alert_level)
+        ):
+            return False
+        return True
+
+
+class EventSubscriber:
+    """One client's bounded event queue."""
+
+    def __init__(self, event_filter: EventFilter, max_queue: int):
+        self.filter = event_filter
+        self.queue: "asyncio.Queue[Dict[str, Any]]" = asyncio.Queue(maxsize=max_queue)
+        self.dropped = 0
+
+    def offer(self, event: Dict[str, Any]) -> None:
+        if not self.filter.matches(event):
+            return
+        if self.queue.full():
+            # Slow client: drop the oldest event
+            self.queue.get_nowait()
+            self.dropped += 1
+        self.queue.put_nowait(event)
+
+
+class EventBus:
+    """Local subscribers plus a Redis listener for cross-worker fan-out."""
+
+    def __init__(self, max_queue: int):
+        self.max_queue = max_queue
+        self._subscribers: Set[EventSubscriber] = set()
+        self._listener: Optional[asyncio.Task] = None
+        self._pending: Set[asyncio.Task] = set()
+        self._redis_connected = False
+
+    # ── subscribers ──────────────────────────────────────────────────
+
+    def subscribe(self, event_filter: EventFilter) -> EventSubscriber:
+        subscriber = EventSubscriber(event_filter, self.max_queue)
+        self._subscribers.add(subscriber)
+        return subscriber
+
+    def unsubscribe(self, subscriber: EventSubscriber) -> None:
+        self._subscribers.discard(subscriber)
+
+    def _deliver_local(self, event: Dict[str, Any]) -> None:
+        for subscriber in list(self._subscribers):
+            subscriber.offer(event)
+
+    # ── publishing ───────────────────────────────────────────────────
+
+    async def publish(self, event: Dict[str, Any]) -> None:
+        """Publish to every worker (or locally only if Redis is down)."""
+        event.setdefault("id", uuid.uuid4().hex)
+        event.setdefault("ts", datetime.utcnow().isoformat())
+        if self._redis_connected:
+            try:
+                await get_redis().publish(EVENTS_CHANNEL, json.dumps(event, default=str))
+                return  # our own listener delivers it locally
+            except Exception as e:
+                logger.warning(f"Event publish to Redis failed, delivering locally: {e}")
+        self._deliver_local(event)
+
+    def publish_nowait(self, event: Dict[str, Any]) -> None:
+        """Schedule publish() from synchronous code (e.g. after-commit callbacks)."""
+        try:
+            loop = asyncio.get_running_loop()
+        except RuntimeError:
+            return
+        task = loop.create_task(self.publish(event))
+        self._pending.add(task)
+        task.add_done_callback(self._pending.discard)
+
+    def publish_after_commit(self, session: AsyncSession, event: Dict[str, Any]) -> None:
+        """Publish once the session's transaction commits; dropped on rollback."""
+        run_after_commit(session, lambda: self.publish_nowait(event))
+
+    # ── redis listener ───────────────────────────────────────────────
+
+    async def _listen(self) -> None:
+        while True:
+            # Dedicated connection: the shared client's 1s socket timeout
+            # would break a long-lived blocking subscription
+            client = redis.Redis.from_url(
+                settings.redis_url, decode_responses=True, socket_connect_timeout=1
+            )
+            try:
+                pubsub = client.pubsub()
+                await pubsub.subscribe(EVENTS_CHANNEL)
+                self._redis_connected = True
+                logger.info(f"Event bus listening on Redis channel {EVENTS_CHANNEL}")
+                try:
+                    async for message in pubsub.listen():
+                        if message.get("type") != "message":
+                            continue
+                        try:
+                            self._deliver_local(json.loads(message["data"]))
+                        except (ValueError, KeyError) as e:
+                            logger.warning(f"Dropping malformed event: {e}")
+                finally:
+                    self._redis_connected = False
+                    await pubsub.aclose()
+            except asyncio.CancelledError:
+                raise
+            except Exception as e:
+                self._redis_connected = False
+                logger.warning(f"Event bus Redis listener down, retrying: {e}")
+            finally:
+                await client.aclose()
+            await asyncio.sleep(RECONNECT_SECONDS)
+
+    async def startup(self) -> None:
+        if self._listener is None:
+            self._listener = asyncio.create_task(self._listen())
+
+    async def shutdown(self) -> None:
+        if self._listener is not None:
+            self._listener.cancel()
+            try:
+                await self._listener
+            except (asyncio.CancelledError, Exception):
+                pass
+            self._listener = None
+
+    def stats(self) -> Dict[str, Any]:
+        return {
+            "subscribers": len(self._subscribers),
+            "redis_connected": self._redis_connected,
+        }
+
+
+# Process-wide bus shared by all requests
+event_bus = EventBus(max_queue=settings.event_stream_queue_size)
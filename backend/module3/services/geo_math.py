@@ -0,0 +1,88 @@
+"""
+Geo Math
+
+Array-based great-circle helpers shared by all services. Every function
+accepts scalars or numpy arrays and broadcasts like any numpy ufunc, so
+callers can compute one-to-many or many-to-many distances in a single
+call instead of looping over pairs in Python.
+"""
+
+from typing import Union
+
+import numpy as np
+
+EARTH_RADIUS_KM = 6371.0
+
+ArrayLike = Union[float, np.ndarray]
+
+
+def haversine_km(
+    lat1: ArrayLike, lon1: ArrayLike,
+    lat2: ArrayLike, lon2: ArrayLike
+) -> ArrayLike:
+    """Great-circle distance in km between (lat1, lon1) and (lat2, lon2)."""
+    lat1 = np.radians(lat1)
+    lat2 = np.radians(lat2)
+    dlat = lat2 - lat1
+    dlon = np.radians(np.asarray(lon2) - np.asarray(lon1))
+
+    a = np.sin(dlat / 2) ** 2 + np.cos(lat1) * np.cos(lat2) * np.sin(dlon / 2) ** 2
+    distance = 2 * EARTH_RADIUS_KM * np.arcsin(np.sqrt(np.clip(a, 0.0, 1.0)))
+    return float(distance) if np.ndim(distance) == 0 else distance
+
+
+def bearing_deg(
+    lat1: ArrayLike, lon1: ArrayLike,
+    lat2: ArrayLike, lon2: ArrayLike
+) -> ArrayLike:
+    """Initial bearing from point 1 to point 2 in degrees [0, 360)."""
+    lat1 = np.radians(lat1)
+    lat2 = np.radians(lat2)
+    dlon = np.radians(np.asarray(lon2) - np.asarray(lon1))
+
+    x = np.sin(dlon) * np.cos(lat2)
+    y = np.cos(lat1) * np.sin(lat2) - np.sin(lat1) * np.cos(lat2) * np.cos(dlon)
+    bearing = (np.degrees(np.arctan2(x, y)) + 360) % 360
+    return float(bearing) if np.ndim(bearing) == 0 else bearing
+
+
+def angular_difference_deg(a: ArrayLike, b: ArrayLike) -> ArrayLike:
+    """Smallest absolute difference between two bearings, in [0, 180]."""
+    diff = np.abs(np.asarray(a) - np.asarray(b)) % 360
+    diff = np.where(diff > 180, 360 - diff, diff)
+    return float(diff) if np.ndim(diff) == 0 else diff
+
+
+def distance_matrix_km(
+    lats_a: np.ndarray, lons_a: np.ndarray,
+    lats_b: np.ndarray, lons_b: np.ndarray
+) -> np.ndarray:
+    """All-pairs distance matrix of shape (len(a), len(b)) in km."""
+    lats_a = np.asarray(lats_a, dtype=float)[:, None]
+    lons_a = np.asarray(lons_a, dtype=float)[:, None]
+    lats_b = np.asarray(lats_b, dtype=float)[None, :]
+    lons_b = np.asarray(lons_b, dtype=float)[None, :]
+    return haversine_km(lats_a, lons_a, lats_b, lons_b)
+
+
+def to_unit_vectors(lats: np.ndarray, lons: np.ndarray) -> np.ndarray:
+    """Convert lat/lon in degrees to (n, 3) unit vectors on the sphere."""
+    lat_rad = np.radians(lats)
+    lon_rad = np.radians(lons)
+    cos_lat = np.cos(lat_rad)
+    return np.column_stack((
+        cos_lat * np.cos(lon_rad),
+        cos_lat * np.sin(lon_rad),
+        np.sin(lat_rad),
+    ))
+
+
+def km_to_chord(distance_km: float) -> float:
+    """Great-circle distance (km) -> chord length on the unit sphere."""
+    angle = min(distance_km / EARTH_RADIUS_KM, np.pi)
+    return float(2 * np.sin(angle / 2))
+
+
+def chord_to_km(chord: ArrayLike) -> ArrayLike:
+    """Chord length on the unit sphere -> great-circle distance (km)."""
+    return 2 * EARTH_RADIUS_KM * np.arcsin(np.clip(np.asarray(chord) / 2, 0.0, 1.0))
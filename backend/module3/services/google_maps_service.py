@@ -3,19 +3,52 @@ Google Maps API Service
 
 Provides route directions and distance matrix calculations
 using the Google Maps Directions and Distance Matrix APIs.
+
+Responses are cached (in-process LRU + Redis) keyed on rounded
+coordinates, so repeated route generation for the same center pairs
+does not call Google again until the cache TTL expires. Distance matrix
+results are cached per origin/destination element.
 """
 
+import asyncio
 import logging
-from typing import List, Optional, Dict, Any
+from typing import List, Optional, Dict, Any, Tuple
 
 import httpx
 from tenacity import retry, stop_after_attempt, wait_exponential, retry_if_exception_type
 
+from services.http_client import http_clients
+from services.cache import ResponseCache
+from services.rate_limit import TokenBucket
 from config import get_settings
 
 logger = logging.getLogger(__name__)
 settings = get_settings()
 
+# Shared across all GoogleMapsService instances
+maps_cache = ResponseCache(
+    namespace="gmaps",
+    ttl_seconds=settings.cache_ttl,
+    max_local_entries=settings.maps_cache_local_entries,
+)
+
+# Distance Matrix limits per request: origins or destinations, and
+# origins x destinations elements
+MAX_MATRIX_SIDE = 25
+MAX_MATRIX_ELEMENTS = 100
+
+# Process-wide request budget for the Google Maps APIs (cache misses only)
+maps_rate_limiter = TokenBucket(
+    rate=settings.google_maps_requests_per_second,
+    capacity=settings.google_maps_burst,
+)
+
+
+def _coord_key(lat: float, lon: float) -> str:
+    """Coordinate rounded to the cache precision (4 decimals ~ 11 m)."""
+    p = settings.maps_cache_coord_precision
+    return f"{lat:.{p}f},{lon:.{p}f}"
+
 
 class GoogleMapsService:
     """Stateless client for Google Maps API calls."""
@@ -23,7 +56,6 @@ class GoogleMapsService:
     def __init__(self):
         self.api_key = settings.google_maps_api_key
         self.base_url = settings.google_maps_base_url
-        self.timeout = settings.external_api_timeout_seconds
 
     async def get_directions(
         self,
@@ -43,6 +75,30 @@ class GoogleMapsService:
           - polyline: encoded polyline string
           - steps: list of step instructions
         """
+        key = ":".join([
+            "dir",
+            _coord_key(origin_lat, origin_lon),
+            _coord_key(dest_lat, dest_lon),
+            "wp=" + "|".join(_coord_key(w["lat"], w["lon"]) for w in waypoints or []),
+            "avoid=" + "|".join(sorted(avoid or [])),
+        ])
+        return await maps_cache.get_or_load(
+            key,
+            lambda: self._fetch_directions(
+                origin_lat, origin_lon, dest_lat, dest_lon, waypoints, avoid
+            ),
+        )
+
+    async def _fetch_directions(
+        self,
+        origin_lat: float,
+        origin_lon: float,
+        dest_lat: float,
+        dest_lon: float,
+        waypoints: Optional[List[Dict[str, float]]],
+        avoid: Optional[List[str]],
+    ) -> Dict[str, Any]:
+        """Call the Directions API (uncached)."""
         params: Dict[str, str] = {
             "origin": f"{origin_lat},{origin_lon}",
             "destination": f"{dest_lat},{dest_lon}",
@@ -97,6 +153,134 @@ class GoogleMapsService:
           - rows: list of origin rows, each containing list of destination elements
             with distance_km and duration_hours
         """
+        origin_keys = [_coord_key(o["lat"], o["lon"]) for o in origins]
+        dest_keys = [_coord_key(d["lat"], d["lon"]) for d in destinations]
+        pair_keys = {
+            (i, j): f"dm:{ok}:{dk}"
+            for i, ok in enumerate(origin_keys)
+            for j, dk in enumerate(dest_keys)
+        }
+
+        elements = await maps_cache.get_many(list(set(pair_keys.values())))
+        missing = [pair for pair, key in pair_keys.items() if key not in elements]
+
+        if missing:
+            # Only request the sub-matrix that covers uncached pairs, split
+            # into blocks within the per-request side and element limits
+            miss_origins = sorted({i for i, _ in missing})
+            miss_dests = sorted({j for _, j in missing})
+            dest_block = min(MAX_MATRIX_SIDE, len(miss_dests))
+            origin_block = min(MAX_MATRIX_SIDE, MAX_MATRIX_ELEMENTS // dest_block)
+
+            blocks = [
+                (miss_origins[a:a + origin_block], miss_dests[b:b + dest_block])
+                for a in range(0, len(miss_origins), origin_block)
+                for b in range(0, len(miss_dests), dest_block)
+            ]
+            fetched = await asyncio.gather(*(
+                self._fetch_distance_matrix(
+                    [origins[i] for i in block_origins],
+                    [destinations[j] for j in block_dests],
+                )
+                for block_origins, block_dests in blocks
+            ))
+
+            to_cache = {}
+            for (block_origins, block_dests), matrix in zip(blocks, fetched):
+                for a, i in enumerate(block_origins):
+                    row = matrix["rows"][a]["elements"] if a < len(matrix["rows"]) else []
+                    for b, j in enumerate(block_dests):
+                        if b >= len(row):
+                            continue
+                        key = pair_keys[(i, j)]
+                        elements[key] = row[b]
+                        if row[b]["status"] == "OK":
+                            to_cache[key] = row[b]
+            await maps_cache.set_many(to_cache)
+
+        unknown = {"distance_km": None, "duration_hours": None, "status": "UNKNOWN"}
+        rows = [
+            {"elements": [
+                elements.get(pair_keys[(i, j)], unknown)
+                for j in range(len(destinations))
+            ]}
+            for i in range(len(origins))
+        ]
+        return {"rows": rows}
+
+    async def get_paired_distances(
+        self,
+        pairs: List[Tuple[Dict[str, float], Dict[str, float]]],
+    ) -> List[Dict[str, Any]]:
+        """
+        Distance and duration for specific (origin, destination) pairs.
+
+        Unlike get_distance_matrix, which bills every origin x destination
+        element, uncached pairs are grouped by their shared origin (or
+        destination, whichever gives fewer requests) and requested as
+        1 x k rows, so N pairs cost N elements instead of N^2.
+
+        Returns one element dict per pair, in input order.
+        """
+        keys = [
+            (_coord_key(o["lat"], o["lon"]), _coord_key(d["lat"], d["lon"]))
+            for o, d in pairs
+        ]
+        cache_keys = [f"dm:{ok}:{dk}" for ok, dk in keys]
+        elements = await maps_cache.get_many(list(set(cache_keys)))
+
+        missing: Dict[Tuple[str, str], Tuple[Dict[str, float], Dict[str, float]]] = {}
+        for (ok, dk), ck, pair in zip(keys, cache_keys, pairs):
+            if ck not in elements:
+                missing.setdefault((ok, dk), pair)
+
+        if missing:
+            by_origin: Dict[str, List[Tuple[str, str]]] = {}
+            by_dest: Dict[str, List[Tuple[str, str]]] = {}
+            for ok, dk in missing:
+                by_origin.setdefault(ok, []).append((ok, dk))
+                by_dest.setdefault(dk, []).append((ok, dk))
+            group_by_origin = len(by_origin) <= len(by_dest)
+            groups = by_origin if group_by_origin else by_dest
+
+            requests = []
+            for group in groups.values():
+                for start in range(0, len(group), MAX_MATRIX_SIDE):
+                    requests.append(group[start:start + MAX_MATRIX_SIDE])
+
+            async def fetch(chunk: List[Tuple[str, str]]) -> Dict[str, Any]:
+                if group_by_origin:
+                    return await self._fetch_distance_matrix(
+                        [missing[chunk[0]][0]], [missing[k][1] for k in chunk]
+                    )
+                return await self._fetch_distance_matrix(
+                    [missing[k][0] for k in chunk], [missing[chunk[0]][1]]
+                )
+
+            fetched = await asyncio.gather(*(fetch(c) for c in requests))
+
+            to_cache = {}
+            for chunk, matrix in zip(requests, fetched):
+                if group_by_origin:
+                    row = matrix["rows"][0]["elements"] if matrix["rows"] else []
+                else:
+                    row = [r["elements"][0] for r in matrix["rows"] if r["elements"]]
+                for (ok, dk), element in zip(chunk, row):
+                    key = f"dm:{ok}:{dk}"
+                    elements[key] = element
+                    if element["status"] == "OK":
+                        to_cache[key] = element
+            await maps_cache.set_many(to_cache)
+
+        unknown = {"distance_km": None, "duration_hours": None, "status": "UNKNOWN"}
+        return [elements.get(ck, unknown) for ck in cache_keys]
+
+    async def _fetch_distance_matrix(
+        self,
+        origins: List[Dict[str, float]],
+        destinations: List[Dict[str, float]],
+    ) -> Dict[str, Any]:
+        """Call the Distance Matrix API (uncached)."""
         origins_str = "|".join(f"{o['lat']},{o['lon']}" for o in origins)
         destinations_str = "|".join(f"{d['lat']},{d['lon']}" for d in destinations)
 
@@ -141,10 +325,11 @@ class GoogleMapsService:
         params["key"] = self.api_key
         url = f"{self.base_url}/{endpoint}"
 
-        async with httpx.AsyncClient(timeout=self.timeout) as client:
-            response = await client.get(url, params=params)
-            response.raise_for_status()
-            data = response.json()
+        await maps_rate_limiter.acquire()
+
+        response = await http_clients.get(url, params=params)
+        response.raise_for_status()
+        data = response.json()
 
         status = data.get("status", "")
         if status not in ("OK", "ZERO_RESULTS"):
@@ -0,0 +1,140 @@
+"""
+Shared HTTP Client Pool
+
+App-lifetime httpx clients for external APIs (Google Maps, OpenWeatherMap)
+and subscriber webhooks.
+One client per upstream host keeps TCP/TLS connections alive between calls
+and multiplexes requests over HTTP/2 where the host supports it. A
+per-host semaphore caps the number of in-flight requests so bulk jobs
+(route generation, fire rerouting) cannot flood an upstream API.
+
+Webhook URLs come from subscription data, so their hosts are unbounded.
+They go through one dedicated client with its own timeout and limits
+instead of getting a pooled client per host.
+
+The pool is opened and closed in the FastAPI lifespan (see main.py). Code
+running outside the app (scripts, workers) gets clients lazily on first
+use and should call ``http_clients.shutdown()`` when done.
+"""
+
+import asyncio
+import logging
+from typing import Any, Dict, Optional
+from urllib.parse import urlsplit
+
+import httpx
+
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+
+def _http2_available() -> bool:
+    try:
+        import h2  # noqa: F401
+    except ImportError:
+        return False
+    return True
+
+
+class HTTPClientPool:
+    """Per-host pooled AsyncClients with a concurrency cap."""
+
+    def __init__(self):
+        self._clients: Dict[str, httpx.AsyncClient] = {}
+        self._semaphores: Dict[str, asyncio.Semaphore] = {}
+        self._webhook_client: Optional[httpx.AsyncClient] = None
+        self._webhook_semaphore: Optional[asyncio.Semaphore] = None
+        self._http2 = settings.external_api_http2 and _http2_available()
+
+    @staticmethod
+    def _host_key(url: str) -> str:
+        parts = urlsplit(url)
+        return f"{parts.scheme}://{parts.netloc}"
+
+    def _create_client(self) -> httpx.AsyncClient:
+        limits = httpx.Limits(
+            max_connections=settings.external_api_max_connections,
+            max_keepalive_connections=settings.external_api_max_keepalive_connections,
+            keepalive_expiry=settings.external_api_keepalive_expiry_seconds,
+        )
+        return httpx.AsyncClient(
+            timeout=settings.external_api_timeout_seconds,
+            limits=limits,
+            http2=self._http2,
+        )
+
+    def client_for(self, url: str) -> httpx.AsyncClient:
+        """Get (or lazily create) the pooled client for url's host."""
+        key = self._host_key(url)
+        client = self._clients.get(key)
+        if client is None or client.is_closed:
+            client = self._create_client()
+            self._clients[key] = client
+            self._semaphores[key] = asyncio.Semaphore(settings.external_api_max_concurrency)
+        return client
+
+    async def get(
+        self,
+        url: str,
+        params: Optional[Dict[str, str]] = None
+    ) -> httpx.Response:
+        """GET through the pooled client, waiting for a free concurrency slot."""
+        client = self.client_for(url)
+        async with self._semaphores[self._host_key(url)]:
+            return await client.get(url, params=params)
+
+    def webhook_client(self) -> httpx.AsyncClient:
+        """Get (or lazily create) the client shared by all webhook deliveries."""
+        if self._webhook_client is None or self._webhook_client.is_closed:
+            self._webhook_client = httpx.AsyncClient(
+                timeout=settings.webhook_timeout_seconds,
+                limits=httpx.Limits(
+                    max_connections=settings.webhook_max_connections,
+                    max_keepalive_connections=settings.webhook_max_keepalive_connections,
+                    keepalive_expiry=settings.external_api_keepalive_expiry_seconds,
+                ),
+                http2=self._http2,
+            )
+            self._webhook_semaphore = asyncio.Semaphore(settings.webhook_max_concurrency)
+        return self._webhook_client
+
+    async def post_webhook(
+        self,
+        url: str,
+        json: Optional[Dict[str, Any]] = None,
+        headers: Optional[Dict[str, str]] = None
+    ) -> httpx.Response:
+        """POST a JSON body to a subscriber webhook, waiting for a free concurrency slot."""
+        client = self.webhook_client()
+        async with self._webhook_semaphore:
+            return await client.post(url, json=json, headers=headers)
+
+    async def startup(self) -> None:
+        """Open clients for the configured external APIs."""
+        for base_url in (settings.google_maps_base_url, settings.weather_api_url):
+            self.client_for(base_url)
+        logger.info(
+            f"HTTP client pool ready for {len(self._clients)} hosts "
+            f"(http2={'on' if self._http2 else 'off'})"
+        )
+
+    async def shutdown(self) -> None:
+        """Close all pooled clients."""
+        clients = list(self._clients.values())
+        if self._webhook_client is not None:
+            clients.append(self._webhook_client)
+        self._clients.clear()
+        self._semaphores.clear()
+        self._webhook_client = None
+        self._webhook_semaphore = None
+        for client in clients:
+            try:
+                await client.aclose()
+            except Exception as e:
+                logger.warning(f"Error closing HTTP client: {e}")
+
+
+# Process-wide pool shared by all external API services
+http_clients = HTTPClientPool()
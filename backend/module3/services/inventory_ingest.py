@@ -0,0 +1,294 @@
+"""
+Bulk Inventory Ingestion
+
+Streams NDJSON or CSV inventory uploads into FoodInventory:
+- rows are parsed and validated one record at a time as the body arrives
+  (CSV records may span lines inside quoted fields);
+- valid rows are buffered into chunks, days_of_supply / stock_status are
+  computed for the whole chunk with numpy, and each chunk is written with
+  one multi-row INSERT plus one current_inventory upsert;
+- invalid rows are reported per line and never abort the upload.
+"""
+
+import csv
+import codecs
+import json
+import logging
+import time
+from datetime import datetime
+from typing import AsyncIterator, List, Dict, Any, Optional, Set
+
+import numpy as np
+from pydantic import ValidationError
+from sqlalchemy.ext.asyncio import AsyncSession
+from sqlalchemy import select, insert
+
+from models.inventory import FoodInventory, FoodCategory
+from models.agricultural import Region
+from schemas.inventory import (
+    InventoryBulkRow, InventoryBulkRowError, InventoryBulkIngestResponse
+)
+from services.inventory_snapshot import SNAPSHOT_COLUMNS, upsert_current_inventory
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+SUPPORTED_FORMATS = ("ndjson", "csv")
+
+
+def compute_supply_status(
+    quantity_tonnes: np.ndarray,
+    consumption_rate: np.ndarray
+) -> tuple:
+    """
+    Vectorized days_of_supply and stock_status, same rules as
+    POST /inventory/: only computed when quantity and rate are non-zero.
+
+    consumption_rate uses NaN for missing values. Returns (days, status)
+    as object arrays with None where not computed.
+    """
+    valid = (quantity_tonnes != 0) & ~np.isnan(consumption_rate) & (consumption_rate != 0)
+    days = np.full(quantity_tonnes.shape, np.nan)
+    np.divide(quantity_tonnes, consumption_rate, out=days, where=valid)
+
+    status = np.select(
+        [days < 7, days < 15, days < 30],
+        ["critical", "low", "adequate"],
+        default="surplus"
+    ).astype(object)
+    status[~valid] = None
+
+    days_out = days.astype(object)
+    days_out[~valid] = None
+    return days_out, status
+
+
+class InventoryIngestService:
+    """Chunked bulk loader for FoodInventory."""
+
+    def __init__(self, db: AsyncSession):
+        self.db = db
+        self.chunk_size = settings.bulk_ingest_chunk_size
+        self.max_errors = settings.bulk_ingest_max_errors
+
+        self._region_ids: Set[int] = set()
+        self._category_ids: Set[int] = set()
+        self._buffer: List[InventoryBulkRow] = []
+        self._errors: List[InventoryBulkRowError] = []
+        self._rows_received = 0
+        self._rows_inserted = 0
+        self._rows_failed = 0
+        self._chunks_written = 0
+
+    # ── parsing ──────────────────────────────────────────────────────
+
+    @staticmethod
+    async def _iter_lines(body: AsyncIterator[bytes]) -> AsyncIterator[str]:
+        """Split a byte stream into text lines without buffering the whole body."""
+        decoder = codecs.getincrementaldecoder("utf-8-sig")()
+        pending = ""
+        async for chunk in body:
+            pending += decoder.decode(chunk)
+            *lines, pending = pending.split("\n")
+            for line in lines:
+                yield line.rstrip("\r")
+        pending += decoder.decode(b"", final=True)
+        if pending:
+            yield pending.rstrip("\r")
+
+    @classmethod
+    async def _iter_csv_records(
+        cls,
+        body: AsyncIterator[bytes]
+    ) -> AsyncIterator[tuple]:
+        """
+        Group physical lines into CSV records, yielding (first_line, lines).
+
+        A record continues while it has an unbalanced double quote, so
+        RFC 4180 quoted fields may contain newlines (escaped quotes are
+        doubled and never change the balance).
+        """
+        record: List[str] = []
+        start = 0
+        in_quotes = False
+        line_no = 0
+        async for line in cls._iter_lines(body):
+            line_no += 1
+            if not record:
+                start = line_no
+            record.append(line)
+            if line.count('"') % 2:
+                in_quotes = not in_quotes
+            if not in_quotes:
+                yield start, record
+                record = []
+        if record:
+            yield start, record
+
+    async def _iter_records(
+        self,
+        body: AsyncIterator[bytes],
+        fmt: str
+    ) -> AsyncIterator[tuple]:
+        """Yield (line_number, dict | error message) for each non-blank record."""
+        if fmt == "csv":
+            header: Optional[List[str]] = None
+            async for line_no, lines in self._iter_csv_records(body):
+                if len(lines) == 1 and not lines[0].strip():
+                    continue
+                try:
+                    values = next(csv.reader(
+                        [line + "\n" for line in lines], strict=True
+                    ))
+                except (csv.Error, StopIteration) as e:
+                    yield line_no, f"Invalid CSV: {e or 'unterminated quoted field'}"
+                    continue
+                if header is None:
+                    header = [h.strip() for h in values]
+                    continue
+                if len(values) != len(header):
+                    yield line_no, f"Expected {len(header)} columns, got {len(values)}"
+                    continue
+                # Empty CSV cells mean "not provided"
+                yield line_no, {
+                    k: v for k, v in zip(header, values) if v.strip() != ""
+                }
+            return
+
+        line_no = 0
+        async for line in self._iter_lines(body):
+            line_no += 1
+            if not line.strip():
+                continue
+            try:
+                record = json.loads(line)
+            except json.JSONDecodeError as e:
+                yield line_no, f"Invalid JSON: {e.msg}"
+                continue
+            if not isinstance(record, dict):
+                yield line_no, "Each line must be a JSON object"
+                continue
+            yield line_no, record
+
+    # ── validation ───────────────────────────────────────────────────
+
+    def _add_error(self, line: int, errors: List[str]) -> None:
+        self._rows_failed += 1
+        if len(self._errors) < self.max_errors:
+            self._errors.append(InventoryBulkRowError(line=line, errors=errors))
+
+    def _validate(self, line: int, record: Dict[str, Any]) -> Optional[InventoryBulkRow]:
+        try:
+            row = InventoryBulkRow.model_validate(record)
+        except ValidationError as e:
+            self._add_error(line, [
+                f"{'.'.join(str(p) for p in err['loc'])}: {err['msg']}"
+                for err in e.errors()
+            ])
+            return None
+
+        errors = []
+        if row.region_id not in self._region_ids:
+            errors.append(f"region_id: unknown region {row.region_id}")
+        if row.category_id not in self._category_ids:
+            errors.append(f"category_id: unknown category {row.category_id}")
+        if errors:
+            self._add_error(line, errors)
+            return None
+        return row
+
+    # ── writing ──────────────────────────────────────────────────────
+
+    async def _flush(self) -> None:
+        rows, self._buffer = self._buffer, []
+        if not rows:
+            return
+
+        quantity = np.fromiter((r.quantity_tonnes for r in rows), dtype=float, count=len(rows))
+        rate = np.fromiter(
+            (np.nan if r.consumption_rate_tonnes_per_day is None else r.consumption_rate_tonnes_per_day
+             for r in rows),
+            dtype=float, count=len(rows)
+        )
+        days, status = compute_supply_status(quantity, rate)
+
+        now = datetime.utcnow()
+        values = []
+        for row, d, st in zip(rows, days, status):
+            data = row.model_dump()
+            data["recorded_at"] = data["recorded_at"] or now
+            data["days_of_supply"] = float(d) if d is not None else None
+            data["stock_status"] = st
+            values.append(data)
+
+        result = await self.db.execute(
+            insert(FoodInventory).returning(
+                FoodInventory.id, sort_by_parameter_order=True
+            ),
+            values,
+        )
+        ids = result.scalars().all()
+
+        await upsert_current_inventory(self.db, [
+            {
+                "region_id": v["region_id"],
+                "category_id": v["category_id"],
+                "inventory_id": inventory_id,
+                "recorded_at": v["recorded_at"],
+                **{column: v.get(column) for column in SNAPSHOT_COLUMNS},
+            }
+            for v, inventory_id in zip(values, ids)
+        ])
+
+        self._rows_inserted += len(ids)
+        self._chunks_written += 1
+
+    # ── entry point ──────────────────────────────────────────────────
+
+    async def ingest(
+        self,
+        body: AsyncIterator[bytes],
+        fmt: str
+    ) -> InventoryBulkIngestResponse:
+        """Parse, validate and insert an NDJSON/CSV stream."""
+        if fmt not in SUPPORTED_FORMATS:
+            raise ValueError(f"Unsupported format '{fmt}', expected one of {SUPPORTED_FORMATS}")
+
+        started = time.monotonic()
+
+        # Foreign keys are checked in memory so one bad row cannot fail a chunk
+        self._region_ids = set((await self.db.execute(select(Region.id))).scalars().all())
+        self._category_ids = set((await self.db.execute(select(FoodCategory.id))).scalars().all())
+
+        async for line, record in self._iter_records(body, fmt):
+            self._rows_received += 1
+            if isinstance(record, str):
+                self._add_error(line, [record])
+                continue
+
+            row = self._validate(line, record)
+            if row is None:
+                continue
+
+            self._buffer.append(row)
+            if len(self._buffer) >= self.chunk_size:
+                await self._flush()
+
+        await self._flush()
+
+        duration = time.monotonic() - started
+        logger.info(
+            f"Bulk inventory ingest: {self._rows_inserted}/{self._rows_received} rows "
+            f"in {self._chunks_written} chunks ({duration:.1f}s)"
+        )
+
+        return InventoryBulkIngestResponse(
+            rows_received=self._rows_received,
+            rows_inserted=self._rows_inserted,
+            rows_failed=self._rows_failed,
+            chunks_written=self._chunks_written,
+            duration_seconds=round(duration, 3),
+            errors=self._errors,
+            errors_truncated=self._rows_failed > len(self._errors),
+        )
@@ -0,0 +1,117 @@
+"""
+Current Inventory Snapshot
+
+Keeps the current_inventory table (latest FoodInventory reading per
+region and category) in step with inventory writes. Callers upsert in the
+same transaction as the FoodInventory insert/update, so readers never see
+a snapshot that disagrees with committed history.
+"""
+
+import logging
+from typing import Iterable, Dict, Any, List
+
+from sqlalchemy.ext.asyncio import AsyncSession
+from sqlalchemy import select, delete, func, tuple_
+from sqlalchemy.dialects.postgresql import insert as pg_insert
+
+from models.inventory import FoodInventory, CurrentInventory
+
+logger = logging.getLogger(__name__)
+
+# Rows per upsert statement (keeps bind parameters under the driver limit)
+UPSERT_BATCH_SIZE = 1000
+
+SNAPSHOT_COLUMNS = (
+    "quantity_tonnes",
+    "days_of_supply",
+    "consumption_rate_tonnes_per_day",
+    "stock_status",
+)
+
+
+def snapshot_row(inventory: FoodInventory) -> Dict[str, Any]:
+    """Snapshot values for a flushed FoodInventory record."""
+    row = {
+        "region_id": inventory.region_id,
+        "category_id": inventory.category_id,
+        "inventory_id": inventory.id,
+        "recorded_at": inventory.recorded_at,
+    }
+    for column in SNAPSHOT_COLUMNS:
+        row[column] = getattr(inventory, column)
+    return row
+
+
+async def upsert_current_inventory(
+    db: AsyncSession,
+    rows: Iterable[Dict[str, Any]]
+) -> None:
+    """
+    Upsert snapshot rows (see snapshot_row).
+
+    A row only replaces the stored snapshot if it is at least as recent
+    (recorded_at, then inventory id), so back-dated or out-of-order
+    writes never overwrite a newer reading. Within one call the newest
+    row per (region, category) wins.
+    """
+    latest: Dict[tuple, Dict[str, Any]] = {}
+    for row in rows:
+        key = (row["region_id"], row["category_id"])
+        current = latest.get(key)
+        if current is None or (row["recorded_at"], row["inventory_id"]) >= (
+            current["recorded_at"], current["inventory_id"]
+        ):
+            latest[key] = row
+    rows = list(latest.values())
+    for start in range(0, len(rows), UPSERT_BATCH_SIZE):
+        await _upsert_batch(db, rows[start:start + UPSERT_BATCH_SIZE])
+
+
+async def _upsert_batch(db: AsyncSession, rows: List[Dict[str, Any]]) -> None:
+    stmt = pg_insert(CurrentInventory).values(rows)
+    excluded = stmt.excluded
+    stmt = stmt.on_conflict_do_update(
+        constraint="uq_current_inventory_region_category",
+        set_={
+            "inventory_id": excluded.inventory_id,
+            "recorded_at": excluded.recorded_at,
+            "updated_at": func.now(),
+            **{column: getattr(excluded, column) for column in SNAPSHOT_COLUMNS},
+        },
+        where=(
+            tuple_(excluded.recorded_at, excluded.inventory_id)
+            >= tuple_(CurrentInventory.recorded_at, CurrentInventory.inventory_id)
+        ),
+    )
+    await db.execute(stmt)
+
+
+async def rebuild_current_inventory(db: AsyncSession) -> int:
+    """Recompute the whole snapshot from FoodInventory history. Returns row count."""
+    ranked = select(
+        FoodInventory.id,
+        FoodInventory.region_id,
+        FoodInventory.category_id,
+        FoodInventory.recorded_at,
+        *[getattr(FoodInventory, column) for column in SNAPSHOT_COLUMNS],
+        func.row_number().over(
+            partition_by=(FoodInventory.region_id, FoodInventory.category_id),
+            order_by=(FoodInventory.recorded_at.desc(), FoodInventory.id.desc())
+        ).label("rn")
+    ).subquery()
+
+    columns: List[str] = ["region_id", "category_id", "inventory_id", "recorded_at", *SNAPSHOT_COLUMNS]
+    source = select(
+        ranked.c.region_id,
+        ranked.c.category_id,
+        ranked.c.id,
+        ranked.c.recorded_at,
+        *[ranked.c[column] for column in SNAPSHOT_COLUMNS],
+    ).where(ranked.c.rn == 1)
+
+    await db.execute(delete(CurrentInventory))
+    result = await db.execute(
+        pg_insert(CurrentInventory).from_select(columns, source)
+    )
+    logger.info(f"Rebuilt current inventory snapshot ({result.rowcount} rows)")
+    return result.rowcount
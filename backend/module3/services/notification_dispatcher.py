@@ -0,0 +1,291 @@
+"""
+Notification Dispatcher
+
+Drains the notification_outbox table in the background:
+- claims due rows in batches with FOR UPDATE SKIP LOCKED, so several
+  app workers can dispatch side by side without double-claiming;
+- delivers each row through its channel (email over SMTP, webhook over
+  the shared HTTP client pool, SMS/escalations logged until a provider
+  is configured), throttled by a per-channel token bucket;
+- retries failures with exponential backoff and gives up after
+  ``notification_max_attempts`` (status ``dead``).
+
+Rows stuck in ``sending`` (worker crashed mid-batch) are reclaimed after
+``notification_claim_timeout_seconds``. Sent and dead rows are deleted
+once they are older than ``notification_outbox_retention_days``. Delivery is at-least-once; the
+outbox dedup_key is passed to receivers as an idempotency key.
+
+With ``notification_transport = "log"`` (the default) deliveries are only
+logged, which keeps development and tests free of external services.
+"""
+
+import asyncio
+import logging
+import smtplib
+import time
+from datetime import datetime, timedelta
+from email.message import EmailMessage
+from typing import Any, Dict, List, Optional
+
+from sqlalchemy import select, update, delete, func, and_, or_, bindparam
+
+from models.base import AsyncSessionLocal
+from models.alerts import NotificationOutbox, AlertSubscription
+from services.http_client import http_clients
+from services.rate_limit import TokenBucket
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+OUTBOX_PURGE_INTERVAL_SECONDS = 3600
+OUTBOX_PURGE_BATCH_SIZE = 5000
+
+
+class NotificationDispatcher:
+    """Batch outbox drainer with retries and per-channel rate limits."""
+
+    def __init__(self):
+        self.batch_size = settings.notification_dispatch_batch_size
+        self._next_purge_at = 0.0  # monotonic time of the next retention purge
+        email_bucket = TokenBucket(
+            settings.notification_email_per_second, settings.notification_email_per_second
+        )
+        self._buckets = {
+            "email": email_bucket,
+            "escalation": email_bucket,
+            "sms": TokenBucket(
+                settings.notification_sms_per_second, settings.notification_sms_per_second
+            ),
+            "webhook": TokenBucket(
+                settings.notification_webhook_per_second, settings.notification_webhook_per_second
+            ),
+        }
+
+    # ── claiming ─────────────────────────────────────────────────────
+
+    async def _claim(self) -> List[Dict[str, Any]]:
+        """Mark up to batch_size due rows as sending and return them."""
+        now = datetime.utcnow()
+        stale = now - timedelta(seconds=settings.notification_claim_timeout_seconds)
+        due = (
+            select(NotificationOutbox.id)
+            .where(
+                or_(
+                    and_(
+                        NotificationOutbox.status == "pending",
+                        NotificationOutbox.next_attempt_at <= now
+                    ),
+                    and_(
+                        NotificationOutbox.status == "sending",
+                        NotificationOutbox.claimed_at < stale
+                    ),
+                )
+            )
+            .order_by(NotificationOutbox.next_attempt_at)
+            .limit(self.batch_size)
+            .with_for_update(skip_locked=True)
+        )
+        async with AsyncSessionLocal() as session, session.begin():
+            result = await session.execute(
+                update(NotificationOutbox)
+                .where(NotificationOutbox.id.in_(due.scalar_subquery()))
+                .values(status="sending", claimed_at=now)
+                .returning(
+                    NotificationOutbox.id,
+                    NotificationOutbox.subscription_id,
+                    NotificationOutbox.channel,
+                    NotificationOutbox.recipient,
+                    NotificationOutbox.payload,
+                    NotificationOutbox.dedup_key,
+                    NotificationOutbox.attempts,
+                )
+                .execution_options(synchronize_session=False)
+            )
+            return [dict(row._mapping) for row in result]
+
+    # ── delivery ─────────────────────────────────────────────────────
+
+    async def _deliver(self, row: Dict[str, Any]) -> Optional[str]:
+        """Send one notification. Returns an error message, or None on success."""
+        bucket = self._buckets.get(row["channel"])
+        if bucket is not None:
+            await bucket.acquire()
+        try:
+            if settings.notification_transport != "live":
+                logger.info(
+                    f"Notification sent ({row['channel']}, log transport): "
+                    f"{row['payload'].get('alert_code')} -> {row['recipient']}"
+                )
+            elif row["channel"] == "webhook":
+                await self._send_webhook(row)
+            elif row["channel"] == "email" or (
+                row["channel"] == "escalation" and "@" in row["recipient"]
+            ):
+                await asyncio.to_thread(self._send_email, row)
+            else:
+                # No SMS gateway configured yet
+                logger.warning(
+                    f"Notification ({row['channel']}): "
+                    f"{row['payload'].get('alert_code')} -> {row['recipient']}"
+                )
+        except Exception as e:
+            return f"{type(e).__name__}: {e}"
+        return None
+
+    @staticmethod
+    def _send_email(row: Dict[str, Any]) -> None:
+        payload = row["payload"]
+        message = EmailMessage()
+        message["From"] = settings.smtp_sender
+        message["To"] = row["recipient"]
+        message["Subject"] = f"[{payload.get('alert_level', '').upper()}] {payload.get('title')}"
+        message["X-Idempotency-Key"] = row["dedup_key"]
+        message.set_content(payload.get("description") or payload.get("title") or "")
+        with smtplib.SMTP(settings.smtp_host, settings.smtp_port, timeout=10) as smtp:
+            smtp.send_message(message)
+
+    @staticmethod
+    async def _send_webhook(row: Dict[str, Any]) -> None:
+        response = await http_clients.post_webhook(
+            row["recipient"],
+            json=row["payload"],
+            headers={"Idempotency-Key": row["dedup_key"]},
+        )
+        response.raise_for_status()
+
+    # ── bookkeeping ──────────────────────────────────────────────────
+
+    @staticmethod
+    def _retry_delay(attempts: int) -> timedelta:
+        seconds = settings.notification_retry_base_seconds * (2 ** max(attempts - 1, 0))
+        return timedelta(seconds=min(seconds, settings.notification_retry_max_seconds))
+
+    async def _record(
+        self,
+        rows: List[Dict[str, Any]],
+        errors: List[Optional[str]]
+    ) -> None:
+        now = datetime.utcnow()
+        sent_ids = [row["id"] for row, error in zip(rows, errors) if error is None]
+        failures = []
+        sent_per_subscription: Dict[int, int] = {}
+
+        for row, error in zip(rows, errors):
+            if error is None:
+                if row["subscription_id"] is not None:
+                    sub_id = row["subscription_id"]
+                    sent_per_subscription[sub_id] = sent_per_subscription.get(sub_id, 0) + 1
+                continue
+            attempts = row["attempts"] + 1
+            dead = attempts >= settings.notification_max_attempts
+            failures.append({
+                "row_id": row["id"],
+                "new_status": "dead" if dead else "pending",
+                "new_attempts": attempts,
+                "retry_at": now + self._retry_delay(attempts),
+                "error": error[:2000],
+            })
+            if dead:
+                logger.error(f"Notification {row['dedup_key']} dead after {attempts} attempts: {error}")
+
+        outbox = NotificationOutbox.__table__
+        subscriptions = AlertSubscription.__table__
+        async with AsyncSessionLocal() as session, session.begin():
+            if sent_ids:
+                await session.execute(
+                    update(outbox)
+                    .where(outbox.c.id.in_(sent_ids))
+                    .values(status="sent", sent_at=now, attempts=outbox.c.attempts + 1, last_error=None)
+                )
+            if failures:
+                await session.execute(
+                    update(outbox)
+                    .where(outbox.c.id == bindparam("row_id"))
+                    .values(
+                        status=bindparam("new_status"),
+                        attempts=bindparam("new_attempts"),
+                        next_attempt_at=bindparam("retry_at"),
+                        last_error=bindparam("error"),
+                    ),
+                    failures,
+                )
+            if sent_per_subscription:
+                await session.execute(
+                    update(subscriptions)
+                    .where(subscriptions.c.id == bindparam("sub_id"))
+                    .values(
+                        last_notification_at=now,
+                        notifications_sent=func.coalesce(subscriptions.c.notifications_sent, 0)
+                        + bindparam("sent"),
+                    ),
+                    [{"sub_id": k, "sent": v} for k, v in sent_per_subscription.items()],
+                )
+
+    async def purge_delivered(self) -> int:
+        """Delete sent and dead rows past retention, in batches. Returns rows deleted."""
+        if settings.notification_outbox_retention_days <= 0:
+            return 0
+        cutoff = datetime.utcnow() - timedelta(days=settings.notification_outbox_retention_days)
+        expired = (
+            select(NotificationOutbox.id)
+            .where(
+                NotificationOutbox.status.in_(("sent", "dead")),
+                NotificationOutbox.updated_at < cutoff,
+            )
+            .limit(OUTBOX_PURGE_BATCH_SIZE)
+        )
+        deleted = 0
+        while True:
+            async with AsyncSessionLocal() as session, session.begin():
+                result = await session.execute(
+                    delete(NotificationOutbox)
+                    .where(NotificationOutbox.id.in_(expired.scalar_subquery()))
+                    .execution_options(synchronize_session=False)
+                )
+            deleted += result.rowcount
+            if result.rowcount < OUTBOX_PURGE_BATCH_SIZE:
+                break
+        if deleted:
+            logger.info(f"Purged {deleted} delivered notifications from the outbox")
+        return deleted
+
+    # ── entry points ─────────────────────────────────────────────────
+
+    async def dispatch_batch(self) -> int:
+        """Claim, deliver and record one batch. Returns rows processed."""
+        rows = await self._claim()
+        if not rows:
+            return 0
+        errors = await asyncio.gather(*(self._deliver(row) for row in rows))
+        await self._record(rows, list(errors))
+        logger.info(
+            f"Dispatched {len(rows)} notifications "
+            f"({sum(1 for e in errors if e is None)} sent)"
+        )
+        return len(rows)
+
+    async def run_forever(self) -> None:
+        """Drain the outbox until cancelled; sleeps when there is nothing due."""
+        while True:
+            if time.monotonic() >= self._next_purge_at:
+                self._next_purge_at = time.monotonic() + OUTBOX_PURGE_INTERVAL_SECONDS
+                try:
+                    await self.purge_delivered()
+                except asyncio.CancelledError:
+                    raise
+                except Exception as e:
+                    logger.warning(f"Notification outbox purge failed: {e}")
+            try:
+                processed = await self.dispatch_batch()
+            except asyncio.CancelledError:
+                raise
+            except Exception as e:
+                logger.warning(f"Notification dispatch failed: {e}")
+                processed = 0
+            if processed < self.batch_size:
+                await asyncio.sleep(settings.notification_dispatch_poll_seconds)
+
+
+# Process-wide dispatcher started from the app lifespan
+notification_dispatcher = NotificationDispatcher()
@@ -0,0 +1,100 @@
+"""
+List Pagination
+
+Shared keyset (cursor) pagination for list endpoints. Rows are ordered
+newest first on (created_at, id); a cursor encodes the last row of the
+previous page, so fetching page N costs the same as page 1 instead of
+scanning and discarding N * page_size rows as OFFSET does.
+
+Offset pagination (``page``) is still accepted for existing clients.
+Totals are optional: ``exact`` runs a COUNT over the filtered query,
+``estimated`` reads the table's row estimate from pg_class (ignores
+filters, free), and ``none`` skips counting entirely.
+"""
+
+import base64
+import json
+from datetime import datetime
+from typing import Any, List, NamedTuple, Optional
+
+from sqlalchemy import Select, select, func, text, tuple_
+from sqlalchemy.ext.asyncio import AsyncSession
+
+COUNT_MODES = ("exact", "estimated", "none")
+
+
+class Page(NamedTuple):
+    """One page of results."""
+    items: List[Any]
+    total: Optional[int]
+    next_cursor: Optional[str]
+
+
+def encode_cursor(created_at: datetime, row_id: int) -> str:
+    """Opaque cursor for the row after which the next page starts."""
+    raw = json.dumps([created_at.isoformat(), row_id]).encode()
+    return base64.urlsafe_b64encode(raw).decode().rstrip("=")
+
+
+def decode_cursor(cursor: str) -> tuple:
+    """Inverse of encode_cursor. Raises ValueError for malformed cursors."""
+    try:
+        padded = cursor + "=" * (-len(cursor) % 4)
+        created_at, row_id = json.loads(base64.urlsafe_b64decode(padded))
+        return datetime.fromisoformat(created_at), int(row_id)
+    except Exception:
+        raise ValueError("Invalid pagination cursor")
+
+
+async def _estimated_count(db: AsyncSession, model: Any) -> Optional[int]:
+    result = await db.execute(
+        text("SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(:t)"),
+        {"t": model.__tablename__},
+    )
+    estimate = result.scalar()
+    # -1 / NULL: table never analyzed
+    return int(estimate) if estimate is not None and estimate >= 0 else None
+
+
+async def paginate(
+    db: AsyncSession,
+    query: Select,
+    model: Any,
+    limit: int,
+    offset: int = 0,
+    cursor: Optional[str] = None,
+    count: str = "exact"
+) -> Page:
+    """
+    Run a filtered ``select(model)`` one page at a time.
+
+    ``cursor`` (from a previous Page.next_cursor) takes precedence over
+    ``offset``. next_cursor is None on the last page.
+    """
+    if count not in COUNT_MODES:
+        raise ValueError(f"Unknown count mode '{count}', expected one of {COUNT_MODES}")
+
+    total: Optional[int] = None
+    if count == "exact":
+        total = (await db.execute(
+            select(func.count()).select_from(query.order_by(None).subquery())
+        )).scalar()
+    elif count == "estimated":
+        total = await _estimated_count(db, model)
+
+    query = query.order_by(model.created_at.desc(), model.id.desc())
+    if cursor:
+        created_at, row_id = decode_cursor(cursor)
+        query = query.where(tuple_(model.created_at, model.id) < tuple_(created_at, row_id))
+    elif offset:
+        query = query.offset(offset)
+
+    # One extra row tells us whether there is a next page
+    rows = list((await db.execute(query.limit(limit + 1))).scalars().all())
+    has_more = len(rows) > limit
+    rows = rows[:limit]
+
+    next_cursor = None
+    if has_more and rows:
+        next_cursor = encode_cursor(rows[-1].created_at, rows[-1].id)
+    return Page(rows, total, next_cursor)
@@ -0,0 +1,385 @@
+"""
+Time-Series Partition Management
+
+food_inventory, weather_data and crop_health_indicators are declared as
+PostgreSQL tables range-partitioned by month on recorded_at. This module
+keeps their partitions in shape:
+
+- ``ensure_partitions`` creates monthly partitions from
+  ``partition_months_back`` months ago to ``partition_months_ahead`` months
+  ahead, plus a DEFAULT partition so out-of-range rows never fail an insert.
+  Rows that landed in DEFAULT for a month are moved when that month's
+  partition is created.
+- ``apply_retention`` rolls raw rows older than
+  ``raw_history_retention_months`` up into the *_daily aggregate tables and
+  drops the old partitions (a metadata-only operation, no row deletes).
+- ``convert_legacy_table`` migrates an existing unpartitioned table.
+
+``partition_maintenance_loop`` runs both periodically from the app lifespan.
+Every app worker runs the loop; each pass takes a transaction-scoped
+advisory lock so only one worker moves rows or drops partitions at a time.
+"""
+
+import asyncio
+import logging
+import re
+from dataclasses import dataclass
+from datetime import date, datetime
+from typing import List, Optional, Tuple
+
+from sqlalchemy import text
+from sqlalchemy.ext.asyncio import AsyncConnection, AsyncEngine
+
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+
+@dataclass(frozen=True)
+class PartitionedTable:
+    """A monthly-partitioned table and the SQL that rolls it up per day."""
+    name: str
+    rollup_sql: str  # {source} is the table/partition to read from
+
+
+PARTITIONED_TABLES: Tuple[PartitionedTable, ...] = (
+    PartitionedTable(
+        name="food_inventory",
+        rollup_sql="""
+            INSERT INTO food_inventory_daily (
+                region_id, category_id, day, readings,
+                quantity_tonnes_avg, quantity_tonnes_min, quantity_tonnes_max,
+                closing_quantity_tonnes, days_of_supply_min, consumption_rate_avg,
+                created_at, updated_at
+            )
+            SELECT
+                region_id, category_id, recorded_at::date, count(*),
+                avg(quantity_tonnes), min(quantity_tonnes), max(quantity_tonnes),
+                (array_agg(quantity_tonnes ORDER BY recorded_at DESC, id DESC))[1],
+                min(days_of_supply), avg(consumption_rate_tonnes_per_day),
+                now(), now()
+            FROM {source}
+            WHERE recorded_at >= :lo AND recorded_at < :hi
+            GROUP BY region_id, category_id, recorded_at::date
+            ON CONFLICT (region_id, category_id, day) DO NOTHING
+        """,
+    ),
+    PartitionedTable(
+        name="weather_data",
+        rollup_sql="""
+            INSERT INTO weather_data_daily (
+                region_id, day, readings,
+                temperature_avg_c, temperature_min_c, temperature_max_c,
+                rainfall_total_mm, humidity_avg_percentage, wind_speed_max_kmh,
+                is_drought, is_flood, is_frost, is_heatwave,
+                created_at, updated_at
+            )
+            SELECT
+                region_id, recorded_at::date, count(*),
+                avg(temperature_c), min(temperature_min_c), max(temperature_max_c),
+                sum(rainfall_mm), avg(humidity_percentage), max(wind_speed_kmh),
+                bool_or(is_drought), bool_or(is_flood), bool_or(is_frost), bool_or(is_heatwave),
+                now(), now()
+            FROM {source}
+            WHERE recorded_at >= :lo AND recorded_at < :hi
+            GROUP BY region_id, recorded_at::date
+            ON CONFLICT (region_id, day) DO NOTHING
+        """,
+    ),
+    PartitionedTable(
+        name="crop_health_indicators",
+        rollup_sql="""
+            INSERT INTO crop_health_daily (
+                region_id, day, readings,
+                ndvi_avg, evi_avg, crop_stress_index_avg, crop_stress_index_max,
+                disease_risk_max, pest_risk_max, vegetation_coverage_avg_percentage,
+                created_at, updated_at
+            )
+            SELECT
+                region_id, recorded_at::date, count(*),
+                avg(ndvi), avg(evi), avg(crop_stress_index), max(crop_stress_index),
+                max(disease_risk), max(pest_risk), avg(vegetation_coverage_percentage),
+                now(), now()
+            FROM {source}
+            WHERE recorded_at >= :lo AND recorded_at < :hi
+            GROUP BY region_id, recorded_at::date
+            ON CONFLICT (region_id, day) DO NOTHING
+        """,
+    ),
+)
+
+_PARTITION_NAME = re.compile(r"^(?P<table>.+)_p(?P<year>\d{4})(?P<month>\d{2})$")
+
+
+def _add_months(month: date, n: int) -> date:
+    index = month.year * 12 + (month.month - 1) + n
+    return date(index // 12, index % 12 + 1, 1)
+
+
+def _month_start(value: datetime) -> date:
+    return date(value.year, value.month, 1)
+
+
+def partition_name(table: str, month: date) -> str:
+    return f"{table}_p{month.year:04d}{month.month:02d}"
+
+
+async def _is_partitioned(conn: AsyncConnection, table: str) -> bool:
+    result = await conn.execute(
+        text(
+            "SELECT 1 FROM pg_partitioned_table pt "
+            "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = :t"
+        ),
+        {"t": table},
+    )
+    return result.scalar() is not None
+
+
+async def _list_partitions(conn: AsyncConnection, table: str) -> List[str]:
+    result = await conn.execute(
+        text(
+            "SELECT c.relname FROM pg_inherits i "
+            "JOIN pg_class c ON c.oid = i.inhrelid "
+            "JOIN pg_class p ON p.oid = i.inhparent "
+            "WHERE p.relname = :t"
+        ),
+        {"t": table},
+    )
+    return list(result.scalars().all())
+
+
+# ── partition creation ───────────────────────────────────────────────
+
+async def _create_month_partition(conn: AsyncConnection, table: str, month: date) -> None:
+    """Create one monthly partition, moving any matching rows out of DEFAULT first."""
+    name = partition_name(table, month)
+    default = f"{table}_default"
+    bounds = {"lo": datetime.combine(month, datetime.min.time()),
+              "hi": datetime.combine(_add_months(month, 1), datetime.min.time())}
+
+    stray = (await conn.execute(
+        text(f"SELECT count(*) FROM {default} WHERE recorded_at >= :lo AND recorded_at < :hi"),
+        bounds,
+    )).scalar()
+
+    if stray:
+        await conn.execute(text(
+            f"CREATE TEMP TABLE _moving ON COMMIT DROP AS "
+            f"SELECT * FROM {default} WHERE recorded_at >= :lo AND recorded_at < :hi"
+        ), bounds)
+        await conn.execute(
+            text(f"DELETE FROM {default} WHERE recorded_at >= :lo AND recorded_at < :hi"),
+            bounds,
+        )
+
+    await conn.execute(text(
+        f"CREATE TABLE IF NOT EXISTS {name} PARTITION OF {table} "
+        f"FOR VALUES FROM ('{bounds['lo']:%Y-%m-%d}') TO ('{bounds['hi']:%Y-%m-%d}')"
+    ))
+
+    if stray:
+        await conn.execute(text(f"INSERT INTO {table} SELECT * FROM _moving"))
+        await conn.execute(text("DROP TABLE _moving"))
+        logger.info(f"Moved {stray} rows from {default} into {name}")
+
+
+async def ensure_partitions(
+    conn: AsyncConnection,
+    now: Optional[datetime] = None
+) -> int:
+    """Create missing DEFAULT and monthly partitions. Returns partitions created."""
+    now = now or datetime.utcnow()
+    current = _month_start(now)
+    months = [
+        _add_months(current, n)
+        for n in range(-settings.partition_months_back, settings.partition_months_ahead + 1)
+    ]
+
+    created = 0
+    for spec in PARTITIONED_TABLES:
+        if not await _is_partitioned(conn, spec.name):
+            logger.warning(f"{spec.name} is not partitioned; run convert_legacy_table first")
+            continue
+
+        existing = set(await _list_partitions(conn, spec.name))
+        if f"{spec.name}_default" not in existing:
+            await conn.execute(text(
+                f"CREATE TABLE IF NOT EXISTS {spec.name}_default PARTITION OF {spec.name} DEFAULT"
+            ))
+            created += 1
+
+        for month in months:
+            if partition_name(spec.name, month) not in existing:
+                await _create_month_partition(conn, spec.name, month)
+                created += 1
+
+    if created:
+        logger.info(f"Created {created} time-series partitions")
+    return created
+
+
+# ── retention / rollup ───────────────────────────────────────────────
+
+async def apply_retention(
+    conn: AsyncConnection,
+    now: Optional[datetime] = None
+) -> int:
+    """
+    Roll raw rows older than the retention window into daily aggregates,
+    then drop their partitions (or delete them from DEFAULT).
+
+    Rollups use ON CONFLICT DO NOTHING, so a run interrupted between the
+    rollup and the drop is safe to repeat. Returns partitions dropped.
+    """
+    if settings.raw_history_retention_months <= 0:
+        return 0
+
+    now = now or datetime.utcnow()
+    cutoff_month = _add_months(_month_start(now), -settings.raw_history_retention_months)
+    cutoff = datetime.combine(cutoff_month, datetime.min.time())
+    dropped = 0
+
+    for spec in PARTITIONED_TABLES:
+        if not await _is_partitioned(conn, spec.name):
+            continue
+
+        for name in sorted(await _list_partitions(conn, spec.name)):
+            match = _PARTITION_NAME.match(name)
+            if not match or match.group("table") != spec.name:
+                continue
+            month = date(int(match.group("year")), int(match.group("month")), 1)
+            if month >= cutoff_month:
+                continue
+
+            bounds = {
+                "lo": datetime.combine(month, datetime.min.time()),
+                "hi": datetime.combine(_add_months(month, 1), datetime.min.time()),
+            }
+            await conn.execute(text(spec.rollup_sql.format(source=name)), bounds)
+            await conn.execute(text(f"ALTER TABLE {spec.name} DETACH PARTITION {name}"))
+            await conn.execute(text(f"DROP TABLE {name}"))
+            dropped += 1
+            logger.info(f"Rolled up and dropped partition {name}")
+
+        # Old rows that were parked in DEFAULT
+        default = f"{spec.name}_default"
+        bounds = {"lo": datetime(1900, 1, 1), "hi": cutoff}
+        await conn.execute(text(spec.rollup_sql.format(source=default)), bounds)
+        await conn.execute(text(f"DELETE FROM {default} WHERE recorded_at < :hi"), bounds)
+
+    return dropped
+
+
+# ── legacy migration ─────────────────────────────────────────────────
+
+async def convert_legacy_table(conn: AsyncConnection, table: str) -> bool:
+    """
+    Rename an existing unpartitioned table (and its indexes/sequence) out
+    of the way so ``Base.metadata.create_all`` can create the partitioned
+    version. Call ``copy_legacy_rows`` after create_all and
+    ensure_partitions. Returns True if a legacy table was renamed.
+    """
+    exists = (await conn.execute(
+        text("SELECT to_regclass(:t) IS NOT NULL"), {"t": table}
+    )).scalar()
+    if not exists or await _is_partitioned(conn, table):
+        return False
+
+    legacy = f"{table}_legacy"
+    indexes = (await conn.execute(
+        text("SELECT indexname FROM pg_indexes WHERE tablename = :t"), {"t": table}
+    )).scalars().all()
+    sequence = (await conn.execute(
+        text("SELECT pg_get_serial_sequence(:t, 'id')"), {"t": table}
+    )).scalar()
+
+    await conn.execute(text(f"ALTER TABLE {table} RENAME TO {legacy}"))
+    for index in indexes:
+        await conn.execute(text(f"ALTER INDEX {index} RENAME TO {index}_legacy"))
+    if sequence:
+        await conn.execute(text(f"ALTER SEQUENCE {sequence} RENAME TO {legacy}_id_seq"))
+
+    logger.info(f"Renamed unpartitioned {table} to {legacy}")
+    return True
+
+
+async def copy_legacy_rows(conn: AsyncConnection, table: str) -> int:
+    """Copy rows from {table}_legacy into the partitioned table and drop it."""
+    legacy = f"{table}_legacy"
+    exists = (await conn.execute(
+        text("SELECT to_regclass(:t) IS NOT NULL"), {"t": legacy}
+    )).scalar()
+    if not exists:
+        return 0
+
+    # Partitions for the whole legacy range, so rows don't all land in DEFAULT
+    bounds = (await conn.execute(
+        text(f"SELECT min(recorded_at), max(recorded_at) FROM {legacy}")
+    )).one()
+    if bounds[0] is not None:
+        month = _month_start(bounds[0])
+        last = _month_start(bounds[1])
+        existing = set(await _list_partitions(conn, table))
+        while month <= last:
+            if partition_name(table, month) not in existing:
+                await _create_month_partition(conn, table, month)
+            month = _add_months(month, 1)
+
+    columns = (await conn.execute(
+        text(
+            "SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position) "
+            "FROM information_schema.columns WHERE table_name = :t"
+        ),
+        {"t": table},
+    )).scalar()
+    result = await conn.execute(
+        text(f"INSERT INTO {table} ({columns}) SELECT {columns} FROM {legacy}")
+    )
+    await conn.execute(text(
+        f"SELECT setval(pg_get_serial_sequence('{table}', 'id'), "
+        f"COALESCE((SELECT max(id) FROM {table}), 1))"
+    ))
+    await conn.execute(text(f"DROP TABLE {legacy}"))
+    logger.info(f"Copied {result.rowcount} rows from {legacy} into partitioned {table}")
+    return result.rowcount
+
+
+# ── scheduling ───────────────────────────────────────────────────────
+
+# Advisory lock key shared by every worker's maintenance pass
+PARTITION_MAINTENANCE_LOCK_KEY = 7_301_013
+
+
+async def _try_maintenance_lock(conn: AsyncConnection) -> bool:
+    """Take the maintenance lock for this transaction; False if another worker holds it."""
+    return bool((await conn.execute(
+        text("SELECT pg_try_advisory_xact_lock(:key)"),
+        {"key": PARTITION_MAINTENANCE_LOCK_KEY},
+    )).scalar())
+
+
+async def run_partition_maintenance(engine: AsyncEngine) -> None:
+    """One maintenance pass: create upcoming partitions, then apply retention."""
+    async with engine.begin() as conn:
+        if not await _try_maintenance_lock(conn):
+            logger.info("Partition maintenance running in another worker, skipping pass")
+            return
+        await ensure_partitions(conn)
+    async with engine.begin() as conn:
+        if not await _try_maintenance_lock(conn):
+            logger.info("Partition retention running in another worker, skipping pass")
+            return
+        await apply_retention(conn)
+
+
+async def partition_maintenance_loop(engine: AsyncEngine) -> None:
+    """Run maintenance now and then every ``partition_maintenance_interval_hours``."""
+    while True:
+        try:
+            await run_partition_maintenance(engine)
+        except asyncio.CancelledError:
+            raise
+        except Exception as e:
+            logger.warning(f"Partition maintenance failed: {e}")
+        await asyncio.sleep(settings.partition_maintenance_interval_hours * 3600)
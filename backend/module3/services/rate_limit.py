@@ -0,0 +1,36 @@
+"""
+Rate Limiting
+
+Async token bucket used to keep bulk jobs under external API quotas
+(e.g. Google Maps QPS). Waiters are served in arrival order.
+"""
+
+import asyncio
+import time
+
+
+class TokenBucket:
+    """Token bucket refilled at ``rate`` tokens/second up to ``capacity``."""
+
+    def __init__(self, rate: float, capacity: float):
+        self.rate = rate
+        self.capacity = max(capacity, 1.0)
+        self._tokens = self.capacity
+        self._updated = time.monotonic()
+        self._lock = asyncio.Lock()
+
+    def _refill(self) -> None:
+        now = time.monotonic()
+        self._tokens = min(self.capacity, self._tokens + (now - self._updated) * self.rate)
+        self._updated = now
+
+    async def acquire(self, tokens: float = 1.0) -> None:
+        """Wait until ``tokens`` are available and take them. rate <= 0 disables limiting."""
+        if self.rate <= 0:
+            return
+        async with self._lock:
+            self._refill()
+            while self._tokens < tokens:
+                await asyncio.sleep((tokens - self._tokens) / self.rate)
+                self._refill()
+            self._tokens -= tokens
@@ -33,6 +33,7 @@ from schemas.resilience import (
     ResilienceAssessment, FoodProductionPotential,
     ClimateAdaptationPlan, RegionalResilienceSummary, UrbanAgSummary
 )
+from services.pagination import Page, paginate
 from config import get_settings
 
 logger = logging.getLogger(__name__)
@@ -78,9 +79,11 @@ class AgriculturalResilienceService:
         status: Optional[ProjectStatus] = None,
         is_active: bool = True,
         limit: int = 100,
-        offset: int = 0
-    ) -> Tuple[List[UrbanAgricultureSite], int]:
-        """List urban agriculture sites."""
+        offset: int = 0,
+        cursor: Optional[str] = None,
+        count: str = "exact"
+    ) -> Page:
+        """List urban agriculture sites, newest first."""
         query = select(UrbanAgricultureSite).where(
             UrbanAgricultureSite.is_active == is_active
         )
@@ -92,13 +95,10 @@ class AgriculturalResilienceService:
         if status:
             query = query.where(UrbanAgricultureSite.status == status)
 
-        count_query = select(func.count()).select_from(query.subquery())
-        total = (await self.db.execute(count_query)).scalar()
-
-        query = query.offset(offset).limit(limit)
-        result = await self.db.execute(query)
-
-        return list(result.scalars().all()), total
+        return await paginate(
+            self.db, query, UrbanAgricultureSite,
+            limit=limit, offset=offset, cursor=cursor, count=count
+        )
 
     async def update_urban_ag_site(
         self,
@@ -125,7 +125,7 @@ class AgriculturalResilienceService:
 
     async def get_urban_ag_summary(self, region_id: int) -> UrbanAgSummary:
         """Get urban agriculture summary for a region."""
-        sites, _ = await self.list_urban_ag_sites(region_id=region_id)
+        sites = (await self.list_urban_ag_sites(region_id=region_id, count="none")).items
 
         operational = [s for s in sites if s.status == ProjectStatus.OPERATIONAL]
 
@@ -747,10 +747,11 @@ class AgriculturalResilienceService:
         assessment = await self.assess_resilience(region_id)
 
         # Get active projects
-        urban_ag_sites, _ = await self.list_urban_ag_sites(
+        urban_ag_sites = (await self.list_urban_ag_sites(
             region_id=region_id,
-            status=ProjectStatus.OPERATIONAL
-        )
+            status=ProjectStatus.OPERATIONAL,
+            count="none"
+        )).items
         diversification_plans = await self.list_diversification_plans(
             region_id=region_id,
             status=ProjectStatus.APPROVED
@@ -0,0 +1,519 @@
+"""
+Multi-hop Route Planner
+
+Builds an in-memory directed graph over active TransportRoute edges
+(region -> region) and answers k-shortest-path queries with Yen's
+algorithm on top of Dijkstra. Edge weights mirror the penalties used by
+DistributionNetworkService route scoring (time, cost, capacity,
+operational status), so a lower path weight means a better route.
+
+A process-wide RoutingGraphCache keeps one planner in memory and reloads
+only the routes that writers mark as changed, so route lookups do not
+re-read the routes and disruptions tables on every request.
+"""
+
+import asyncio
+import heapq
+import itertools
+import logging
+import time
+from dataclasses import dataclass, field
+from typing import List, Optional, Dict, Any, Iterable, Set, Tuple
+
+from sqlalchemy.ext.asyncio import AsyncSession
+from sqlalchemy import select, or_
+
+from models.distribution import TransportRoute, RouteDisruption
+from models.agricultural import Region
+from schemas.google_maps import OptimizeFor
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+
+@dataclass
+class RouteEdge:
+    """Lightweight, session-independent copy of a TransportRoute."""
+    route_id: int
+    name: str
+    origin_region_id: int
+    destination_region_id: int
+    distance_km: float = 0.0
+    estimated_time_hours: float = 0.0
+    total_cost: float = 0.0
+    daily_capacity_tonnes: Optional[float] = None
+    cold_chain_capable: bool = False
+    is_primary_route: bool = False
+    operational_status: str = "operational"
+
+    @classmethod
+    def from_route(cls, route: TransportRoute) -> "RouteEdge":
+        return cls(
+            route_id=route.id,
+            name=route.name,
+            origin_region_id=route.origin_region_id,
+            destination_region_id=route.destination_region_id,
+            distance_km=route.distance_km or 0.0,
+            estimated_time_hours=route.estimated_time_hours or 0.0,
+            total_cost=route.total_cost or 0.0,
+            daily_capacity_tonnes=route.daily_capacity_tonnes,
+            cold_chain_capable=bool(route.cold_chain_capable),
+            is_primary_route=bool(route.is_primary_route),
+            operational_status=route.operational_status or "operational",
+        )
+
+
+@dataclass
+class RegionNode:
+    """Region metadata used for path waypoints."""
+    region_id: int
+    name: str
+    latitude: Optional[float] = None
+    longitude: Optional[float] = None
+
+
+@dataclass
+class EdgeWeighting:
+    """
+    Converts a route into a non-negative traversal cost.
+
+    Penalties follow _score_route_smart: time and cost scaled by the
+    optimisation priority, +30 for insufficient capacity, +25 when the
+    route is not operational. Bonuses (primary route, cold chain) are
+    subtracted but the cost never drops below the per-hop base, which
+    keeps Dijkstra valid and favours fewer transfers.
+    """
+    cargo_tonnes: float
+    requires_cold_chain: bool = False
+    include_disrupted: bool = False
+    time_weight: float = 1.0
+    cost_weight: float = 1.0
+    hop_cost: float = 1.0
+
+    @classmethod
+    def for_priority(
+        cls,
+        optimize_for: OptimizeFor,
+        **kwargs
+    ) -> "EdgeWeighting":
+        if optimize_for == OptimizeFor.TIME:
+            return cls(time_weight=2.0, cost_weight=0.5, **kwargs)
+        if optimize_for == OptimizeFor.COST:
+            return cls(time_weight=0.5, cost_weight=2.0, **kwargs)
+        return cls(**kwargs)
+
+    def weight(self, edge: RouteEdge) -> Optional[float]:
+        """Traversal cost for an edge, or None if the edge is unusable."""
+        if self.requires_cold_chain and not edge.cold_chain_capable:
+            return None
+        if not self.include_disrupted and edge.operational_status != "operational":
+            return None
+
+        penalty = edge.estimated_time_hours * 2 * self.time_weight
+        penalty += (edge.total_cost / 100) * self.cost_weight
+
+        if edge.daily_capacity_tonnes and edge.daily_capacity_tonnes < self.cargo_tonnes:
+            penalty += 30
+        if edge.operational_status != "operational":
+            penalty += 25
+
+        bonus = 0.0
+        if edge.is_primary_route:
+            bonus += 10
+        if self.requires_cold_chain and edge.cold_chain_capable:
+            bonus += 15
+
+        return self.hop_cost + max(0.0, penalty - bonus)
+
+
+@dataclass
+class PlannedPath:
+    """A multi-leg path through the route graph."""
+    edges: List[RouteEdge]
+    weight: float
+    nodes: List[int] = field(default_factory=list)
+
+    @property
+    def edge_ids(self) -> Tuple[int, ...]:
+        return tuple(e.route_id for e in self.edges)
+
+    @property
+    def distance_km(self) -> float:
+        return sum(e.distance_km for e in self.edges)
+
+    @property
+    def estimated_time_hours(self) -> float:
+        return sum(e.estimated_time_hours for e in self.edges)
+
+    @property
+    def total_cost(self) -> float:
+        return sum(e.total_cost for e in self.edges)
+
+    @property
+    def cold_chain_capable(self) -> bool:
+        return all(e.cold_chain_capable for e in self.edges)
+
+
+class RoutePlanner:
+    """Directed multigraph of regions connected by transport routes."""
+
+    def __init__(
+        self,
+        edges: Iterable[RouteEdge],
+        regions: Optional[Dict[int, RegionNode]] = None,
+        disrupted_route_ids: Optional[Set[int]] = None
+    ):
+        self.regions: Dict[int, RegionNode] = regions or {}
+        self.disrupted_route_ids: Set[int] = disrupted_route_ids or set()
+        self.edges: Dict[int, RouteEdge] = {}
+        self.adjacency: Dict[int, List[RouteEdge]] = {}
+        for edge in edges:
+            self.add_edge(edge)
+
+    @staticmethod
+    def _is_routable(route: TransportRoute) -> bool:
+        return bool(
+            route.is_active
+            and route.origin_region_id is not None
+            and route.destination_region_id is not None
+        )
+
+    @classmethod
+    async def load(cls, db: AsyncSession) -> "RoutePlanner":
+        """Build a planner from all active routes, regions and disruptions."""
+        routes_result = await db.execute(
+            select(TransportRoute).where(
+                TransportRoute.is_active == True,
+                TransportRoute.origin_region_id.isnot(None),
+                TransportRoute.destination_region_id.isnot(None),
+            )
+        )
+        edges = [RouteEdge.from_route(r) for r in routes_result.scalars().all()]
+
+        regions_result = await db.execute(
+            select(Region.id, Region.name, Region.latitude, Region.longitude)
+        )
+        regions = {
+            rid: RegionNode(rid, name, lat, lon)
+            for rid, name, lat, lon in regions_result.all()
+        }
+
+        disrupted_result = await db.execute(
+            select(RouteDisruption.route_id).where(
+                RouteDisruption.is_active == True,
+                RouteDisruption.route_id.isnot(None),
+            ).distinct()
+        )
+        disrupted = set(disrupted_result.scalars().all())
+
+        return cls(edges, regions, disrupted)
+
+    async def refresh_routes(
+        self,
+        db: AsyncSession,
+        route_ids: Set[int],
+        corridor_ids: Set[int]
+    ) -> int:
+        """
+        Reload only the given routes (and every route on the given
+        corridors), together with their active-disruption flags.
+
+        All reads happen before the graph is touched, so concurrent
+        searches never observe a half-applied refresh. Returns the number
+        of route ids that were re-read.
+        """
+        conditions = []
+        if route_ids:
+            conditions.append(TransportRoute.id.in_(route_ids))
+        if corridor_ids:
+            conditions.append(TransportRoute.corridor_id.in_(corridor_ids))
+        if not conditions:
+            return 0
+
+        result = await db.execute(
+            select(TransportRoute)
+            .where(or_(*conditions))
+            .execution_options(populate_existing=True)
+        )
+        routes = result.scalars().all()
+        touched = set(route_ids) | {r.id for r in routes}
+
+        disrupted_result = await db.execute(
+            select(RouteDisruption.route_id).where(
+                RouteDisruption.is_active == True,
+                RouteDisruption.route_id.in_(touched),
+            ).distinct()
+        )
+        disrupted = set(disrupted_result.scalars().all())
+
+        routable = [r for r in routes if self._is_routable(r)]
+        missing_regions = {
+            rid for r in routable
+            for rid in (r.origin_region_id, r.destination_region_id)
+            if rid not in self.regions
+        }
+        new_regions: Dict[int, RegionNode] = {}
+        if missing_regions:
+            regions_result = await db.execute(
+                select(Region.id, Region.name, Region.latitude, Region.longitude)
+                .where(Region.id.in_(missing_regions))
+            )
+            new_regions = {
+                rid: RegionNode(rid, name, lat, lon)
+                for rid, name, lat, lon in regions_result.all()
+            }
+
+        # Apply without awaiting
+        self.regions.update(new_regions)
+        for route_id in touched:
+            self.remove_edge(route_id)
+        for route in routable:
+            self.add_edge(RouteEdge.from_route(route))
+        self.disrupted_route_ids -= touched
+        self.disrupted_route_ids |= disrupted
+        return len(touched)
+
+    # ── graph maintenance ────────────────────────────────────────────
+
+    def add_edge(self, edge: RouteEdge) -> None:
+        self.remove_edge(edge.route_id)
+        self.edges[edge.route_id] = edge
+        self.adjacency.setdefault(edge.origin_region_id, []).append(edge)
+
+    def remove_edge(self, route_id: int) -> None:
+        edge = self.edges.pop(route_id, None)
+        if edge is None:
+            return
+        out = self.adjacency.get(edge.origin_region_id, [])
+        self.adjacency[edge.origin_region_id] = [e for e in out if e.route_id != route_id]
+
+    # ── search ───────────────────────────────────────────────────────
+
+    def _dijkstra(
+        self,
+        source: int,
+        target: int,
+        weights: Dict[int, float],
+        removed_edges: Set[int],
+        removed_nodes: Set[int],
+        max_hops: int,
+    ) -> Optional[PlannedPath]:
+        """
+        Cheapest source -> target path of at most ``max_hops`` edges.
+
+        Searches over (node, hops) states so a cheap path that is too long
+        does not hide a costlier one that fits the hop limit.
+        """
+        if source == target or max_hops < 1:
+            return None
+
+        counter = itertools.count()
+        heap: List[Tuple[float, int, int, int]] = [(0.0, next(counter), source, 0)]
+        best: Dict[Tuple[int, int], float] = {(source, 0): 0.0}
+        came_from: Dict[Tuple[int, int], RouteEdge] = {}
+        # Fewest hops a node was settled with; weights are positive, so a
+        # later state with as many hops or more is dominated (and would loop)
+        settled_hops: Dict[int, int] = {}
+        reached: Optional[Tuple[int, int]] = None
+
+        while heap:
+            dist, _, node, hops = heapq.heappop(heap)
+            if settled_hops.get(node, max_hops + 1) <= hops:
+                continue
+            settled_hops[node] = hops
+            if node == target:
+                reached = (node, hops)
+                break
+            if hops == max_hops:
+                continue
+
+            for edge in self.adjacency.get(node, ()):
+                w = weights.get(edge.route_id)
+                if w is None or edge.route_id in removed_edges:
+                    continue
+                nxt = edge.destination_region_id
+                if nxt in removed_nodes or settled_hops.get(nxt, max_hops + 1) <= hops + 1:
+                    continue
+                state = (nxt, hops + 1)
+                candidate = dist + w
+                if candidate < best.get(state, float("inf")):
+                    best[state] = candidate
+                    came_from[state] = edge
+                    heapq.heappush(heap, (candidate, next(counter), nxt, hops + 1))
+
+        if reached is None:
+            return None
+
+        path_edges: List[RouteEdge] = []
+        node, hops = reached
+        while hops > 0:
+            edge = came_from[(node, hops)]
+            path_edges.append(edge)
+            node, hops = edge.origin_region_id, hops - 1
+        path_edges.reverse()
+
+        nodes = [source] + [e.destination_region_id for e in path_edges]
+        return PlannedPath(edges=path_edges, weight=best[reached], nodes=nodes)
+
+    def k_shortest_paths(
+        self,
+        origin_region_id: int,
+        destination_region_id: int,
+        k: int,
+        weighting: EdgeWeighting,
+        max_hops: Optional[int] = None,
+    ) -> List[PlannedPath]:
+        """Yen's k loopless shortest paths of at most ``max_hops`` legs, cheapest first."""
+        max_hops = max_hops or settings.max_route_hops
+        weights = {
+            route_id: w for route_id, edge in self.edges.items()
+            if (w := weighting.weight(edge)) is not None
+        }
+
+        first = self._dijkstra(
+            origin_region_id, destination_region_id, weights, set(), set(), max_hops
+        )
+        if first is None:
+            return []
+
+        accepted: List[PlannedPath] = [first]
+        accepted_keys = {first.edge_ids}
+        candidates: List[Tuple[float, int, PlannedPath]] = []
+        candidate_keys: Set[Tuple[int, ...]] = set()
+        counter = itertools.count()
+
+        while len(accepted) < k:
+            previous = accepted[-1]
+            for i in range(len(previous.edges)):
+                spur_node = previous.nodes[i]
+                root_edges = previous.edges[:i]
+                root_key = previous.edge_ids[:i]
+                root_weight = sum(weights[e.route_id] for e in root_edges)
+
+                removed_edges = {
+                    p.edges[i].route_id for p in accepted
+                    if len(p.edges) > i and p.edge_ids[:i] == root_key
+                }
+                removed_nodes = set(previous.nodes[:i])
+
+                # The root already uses i hops; the spur gets the rest
+                spur = self._dijkstra(
+                    spur_node, destination_region_id, weights,
+                    removed_edges, removed_nodes, max_hops - i
+                )
+                if spur is None:
+                    continue
+
+                path = PlannedPath(
+                    edges=root_edges + spur.edges,
+                    weight=root_weight + spur.weight,
+                    nodes=previous.nodes[:i] + spur.nodes,
+                )
+                if path.edge_ids in accepted_keys or path.edge_ids in candidate_keys:
+                    continue
+                candidate_keys.add(path.edge_ids)
+                heapq.heappush(candidates, (path.weight, next(counter), path))
+
+            if not candidates:
+                break
+            _, _, best = heapq.heappop(candidates)
+            candidate_keys.discard(best.edge_ids)
+            accepted.append(best)
+            accepted_keys.add(best.edge_ids)
+
+        return accepted
+
+    # ── presentation ─────────────────────────────────────────────────
+
+    def region_name(self, region_id: int) -> Optional[str]:
+        node = self.regions.get(region_id)
+        return node.name if node else None
+
+    def waypoints(self, path: PlannedPath) -> List[Dict[str, Any]]:
+        """Per-leg waypoint list: route used and the region it arrives at."""
+        waypoints = []
+        for leg, edge in enumerate(path.edges, start=1):
+            node = self.regions.get(edge.destination_region_id)
+            waypoints.append({
+                "leg": leg,
+                "route_id": edge.route_id,
+                "route_name": edge.name,
+                "from_region_id": edge.origin_region_id,
+                "to_region_id": edge.destination_region_id,
+                "to_region_name": node.name if node else None,
+                "latitude": node.latitude if node else None,
+                "longitude": node.longitude if node else None,
+                "distance_km": edge.distance_km,
+                "estimated_time_hours": edge.estimated_time_hours,
+            })
+        return waypoints
+
+
+class RoutingGraphCache:
+    """
+    Process-wide routing graph shared by all requests.
+
+    The full graph is loaded on first use and reloaded every
+    ``routing_graph_refresh_seconds`` so writes from other worker
+    processes are eventually picked up. In between, writers mark the
+    routes or corridors they changed via ``invalidate`` and the next
+    lookup re-reads just those edges.
+    """
+
+    def __init__(self, refresh_seconds: int):
+        self.refresh_seconds = refresh_seconds
+        self._planner: Optional[RoutePlanner] = None
+        self._loaded_at: Optional[float] = None
+        self._dirty_routes: Set[int] = set()
+        self._dirty_corridors: Set[int] = set()
+        self._lock = asyncio.Lock()
+
+    def _is_stale(self) -> bool:
+        if self._planner is None or self._loaded_at is None:
+            return True
+        return time.monotonic() - self._loaded_at > self.refresh_seconds
+
+    def _is_dirty(self) -> bool:
+        return bool(self._dirty_routes or self._dirty_corridors)
+
+    def invalidate(
+        self,
+        route_ids: Iterable[int] = (),
+        corridor_ids: Iterable[int] = ()
+    ) -> None:
+        """Mark routes / corridors whose state changed in the database."""
+        self._dirty_routes.update(r for r in route_ids if r is not None)
+        self._dirty_corridors.update(c for c in corridor_ids if c is not None)
+
+    def invalidate_all(self) -> None:
+        """Force a full reload on next use."""
+        self._loaded_at = None
+
+    async def get(self, db: AsyncSession) -> RoutePlanner:
+        """Return the up-to-date shared planner."""
+        if not self._is_stale() and not self._is_dirty():
+            return self._planner
+
+        async with self._lock:
+            if self._is_stale():
+                self._dirty_routes.clear()
+                self._dirty_corridors.clear()
+                self._planner = await RoutePlanner.load(db)
+                self._loaded_at = time.monotonic()
+                logger.info(f"Routing graph loaded with {len(self._planner.edges)} routes")
+            elif self._is_dirty():
+                route_ids, self._dirty_routes = self._dirty_routes, set()
+                corridor_ids, self._dirty_corridors = self._dirty_corridors, set()
+                try:
+                    reloaded = await self._planner.refresh_routes(db, route_ids, corridor_ids)
+                except Exception:
+                    self.invalidate(route_ids, corridor_ids)
+                    raise
+                logger.debug(f"Routing graph refreshed {reloaded} routes")
+
+        return self._planner
+
+
+# Process-wide routing graph shared by all requests
+routing_graph = RoutingGraphCache(refresh_seconds=settings.routing_graph_refresh_seconds)
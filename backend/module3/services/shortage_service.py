@@ -15,16 +15,18 @@ from datetime import datetime, timedelta
 from typing import List, Optional, Dict, Any, Tuple
 import numpy as np
 from sqlalchemy.ext.asyncio import AsyncSession
-from sqlalchemy import select, func, and_, or_, update
+from sqlalchemy import select, insert, func, and_, or_, update
+from sqlalchemy.dialects.postgresql import insert as pg_insert
 from sqlalchemy.orm import selectinload
 
 from models.alerts import (
-    ShortageAlert, AlertHistory, AlertSubscription, AlertAction,
+    ShortageAlert, AlertHistory, AlertSubscription, AlertAction, NotificationOutbox,
     AlertLevel, AlertType, AlertStatus
 )
-from models.inventory import FoodInventory, FoodCategory, ConsumptionPattern
+from models.inventory import CurrentInventory, FoodCategory, ConsumptionPattern
 from models.agricultural import Region, HarvestForecast
 from models.distribution import RouteDisruption
+from models.base import run_after_commit
 from schemas.alerts import (
     ShortageAlertCreate, ShortageAlertUpdate, ShortageAlertResponse,
     AlertHistoryCreate, AlertHistoryResponse,
@@ -33,11 +35,31 @@ from schemas.alerts import (
     AlertDashboard, AlertAnalytics, AlertSummary,
     PredictedShortage, ShortageRiskAssessment
 )
+from services.subscription_index import subscription_index
+from services.cache import ResponseCache
+from services.pagination import Page, paginate
+from services.event_bus import (
+    event_bus, alert_event, ALERT_CREATED, ALERT_UPDATED, ALERT_ESCALATED, ALERT_RESOLVED
+)
 from config import get_settings
 
 logger = logging.getLogger(__name__)
 settings = get_settings()
 
+# Rows per multi-row alert INSERT (ShortageAlert has ~40 columns; keeps
+# bind parameters under the asyncpg limit)
+ALERT_INSERT_BATCH_SIZE = 500
+OUTBOX_INSERT_BATCH_SIZE = 2000
+
+# Dashboard rollup cache. Redis only (no local tier) so an invalidation
+# from one worker is seen by every worker on its next poll.
+DASHBOARD_CACHE_KEY = "dashboard"
+dashboard_cache = ResponseCache(
+    namespace="alerts",
+    ttl_seconds=settings.alert_dashboard_cache_ttl_seconds,
+    max_local_entries=0,
+)
+
 
 class ShortageAlertingService:
     """Service for predictive shortage alerting."""
@@ -67,6 +89,8 @@ class ShortageAlertingService:
 
         # Trigger notifications
         await self._send_notifications(alert)
+        self._invalidate_dashboard()
+        event_bus.publish_after_commit(self.db, alert_event(ALERT_CREATED, alert))
 
         logger.warning(
             f"Alert created: {alert.alert_code} - {alert.title} "
@@ -127,6 +151,10 @@ class ShortageAlertingService:
 
         await self.db.flush()
         await self.db.refresh(alert)
+        self._invalidate_dashboard()
+        event_bus.publish_after_commit(self.db, alert_event(
+            ALERT_RESOLVED if alert.status == AlertStatus.RESOLVED else ALERT_UPDATED, alert
+        ))
 
         logger.info(f"Alert updated: {alert.alert_code}")
         return alert
@@ -172,6 +200,8 @@ class ShortageAlertingService:
 
         await self.db.flush()
         await self.db.refresh(alert)
+        self._invalidate_dashboard()
+        event_bus.publish_after_commit(self.db, alert_event(ALERT_ESCALATED, alert))
 
         logger.warning(f"Alert escalated: {alert.alert_code} to {escalate_to}")
         return alert
@@ -201,6 +231,8 @@ class ShortageAlertingService:
 
         await self.db.flush()
         await self.db.refresh(alert)
+        self._invalidate_dashboard()
+        event_bus.publish_after_commit(self.db, alert_event(ALERT_RESOLVED, alert))
 
         logger.info(f"Alert resolved: {alert.alert_code}")
         return alert
@@ -251,9 +283,11 @@ class ShortageAlertingService:
         status: Optional[AlertStatus] = None,
         is_active: Optional[bool] = True,
         limit: int = 100,
-        offset: int = 0
-    ) -> Tuple[List[ShortageAlert], int]:
-        """List alerts with filters."""
+        offset: int = 0,
+        cursor: Optional[str] = None,
+        count: str = "exact"
+    ) -> Page:
+        """List alerts with filters, newest first (see services.pagination)."""
         query = select(ShortageAlert)
 
         if region_id:
@@ -267,14 +301,10 @@ class ShortageAlertingService:
         if is_active is not None:
             query = query.where(ShortageAlert.is_active == is_active)
 
-        count_query = select(func.count()).select_from(query.subquery())
-        total = (await self.db.execute(count_query)).scalar()
-
-        query = query.order_by(ShortageAlert.created_at.desc())
-        query = query.offset(offset).limit(limit)
-
-        result = await self.db.execute(query)
-        return list(result.scalars().all()), total
+        return await paginate(
+            self.db, query, ShortageAlert,
+            limit=limit, offset=offset, cursor=cursor, count=count
+        )
 
     async def get_critical_alerts(
         self,
@@ -300,115 +330,150 @@ class ShortageAlertingService:
         self,
         region_id: Optional[int] = None
     ) -> List[PredictedShortage]:
-        """Detect potential shortages across regions."""
-        predictions = []
+        """
+        Detect potential shortages across regions.
+
+        Runs as a fixed number of set-based queries regardless of how many
+        regions are scanned: one for the latest inventory per
+        (region, category) below the warning threshold, and one grouped
+        query per risk factor, joined in memory.
+        """
+        candidates = await self._latest_inventory_below_threshold(region_id)
+        if not candidates:
+            return []
 
-        # Get regions to analyze
-        if region_id:
-            regions = [(region_id,)]
-        else:
-            result = await self.db.execute(
-                select(Region.id).where(Region.is_active == True)
+        forecasts, disruption_counts, anomalies = await self._load_risk_factor_inputs(region_id)
+
+        predictions = []
+        now = datetime.utcnow()
+        for inv in candidates:
+            risk_factors = self._risk_factors_from(
+                forecasts.get(inv.region_id),
+                disruption_counts.get(inv.region_id, 0),
+                (inv.region_id, inv.category_id) in anomalies,
             )
-            regions = result.all()
 
-        for (rid,) in regions:
-            region_predictions = await self._analyze_region_shortages(rid)
-            predictions.extend(region_predictions)
+            predictions.append(PredictedShortage(
+                region_id=inv.region_id,
+                region_name=inv.region_name,
+                category_id=inv.category_id,
+                category_name=inv.category_name or f"Category {inv.category_id}",
+                current_inventory_tonnes=inv.quantity_tonnes,
+                days_of_supply=inv.days_of_supply,
+                predicted_shortage_date=now + timedelta(days=inv.days_of_supply),
+                confidence_score=self._calculate_prediction_confidence(inv),
+                risk_factors=risk_factors,
+                recommended_actions=self._generate_shortage_recommendations(
+                    inv.days_of_supply, risk_factors
+                )
+            ))
 
         # Sort by urgency (days to shortage)
         predictions.sort(
-            key=lambda x: x.days_of_supply if x.days_of_supply else float('inf')
+            key=lambda x: x.days_of_supply if x.days_of_supply is not None else float('inf')
         )
 
         return predictions
 
-    async def _analyze_region_shortages(
+    async def _latest_inventory_below_threshold(
         self,
-        region_id: int
-    ) -> List[PredictedShortage]:
-        """Analyze shortage risks for a specific region."""
-        predictions = []
+        region_id: Optional[int] = None
+    ) -> List[Any]:
+        """Latest inventory per (region, category) with days_of_supply under the warning threshold."""
+        query = (
+            select(
+                CurrentInventory.region_id,
+                Region.name.label("region_name"),
+                CurrentInventory.category_id,
+                FoodCategory.name.label("category_name"),
+                CurrentInventory.quantity_tonnes,
+                CurrentInventory.days_of_supply,
+                CurrentInventory.consumption_rate_tonnes_per_day,
+                CurrentInventory.recorded_at,
+            )
+            .join(Region, Region.id == CurrentInventory.region_id)
+            .outerjoin(FoodCategory, FoodCategory.id == CurrentInventory.category_id)
+            .where(
+                and_(
+                    CurrentInventory.days_of_supply.isnot(None),
+                    CurrentInventory.days_of_supply < settings.shortage_warning_days
+                )
+            )
+        )
+        if region_id:
+            query = query.where(CurrentInventory.region_id == region_id)
+        else:
+            query = query.where(Region.is_active == True)
 
-        # Get region info
-        region_result = await self.db.execute(
-            select(Region).where(Region.id == region_id)
+        result = await self.db.execute(query)
+        return list(result.all())
+
+    async def _load_risk_factor_inputs(
+        self,
+        region_id: Optional[int] = None
+    ) -> Tuple[Dict[int, Any], Dict[int, int], set]:
+        """
+        Grouped risk-factor lookups: next active harvest forecast per region,
+        active disruption count per region, and (region, category) pairs
+        with a consumption anomaly.
+        """
+        now = datetime.utcnow()
+
+        forecast_ranked_query = select(
+            HarvestForecast.region_id,
+            HarvestForecast.deviation_percentage,
+            HarvestForecast.weather_risk,
+            HarvestForecast.labor_risk,
+            func.row_number().over(
+                partition_by=HarvestForecast.region_id,
+                order_by=(HarvestForecast.target_date, HarvestForecast.id)
+            ).label("rn")
+        ).where(
+            and_(
+                HarvestForecast.target_date > now,
+                HarvestForecast.is_active == True
+            )
         )
-        region = region_result.scalar_one_or_none()
-        if not region:
-            return []
+        disruption_query = select(
+            RouteDisruption.region_id, func.count()
+        ).where(RouteDisruption.is_active == True)
+        anomaly_query = select(
+            ConsumptionPattern.region_id, ConsumptionPattern.category_id
+        ).where(ConsumptionPattern.anomaly_detected == True)
+
+        if region_id:
+            forecast_ranked_query = forecast_ranked_query.where(
+                HarvestForecast.region_id == region_id
+            )
+            disruption_query = disruption_query.where(RouteDisruption.region_id == region_id)
+            anomaly_query = anomaly_query.where(ConsumptionPattern.region_id == region_id)
 
-        # Get current inventory levels
-        inventory_result = await self.db.execute(
-            select(FoodInventory)
-            .options(selectinload(FoodInventory.category))
-            .where(FoodInventory.region_id == region_id)
-            .order_by(FoodInventory.recorded_at.desc())
+        forecast_ranked = forecast_ranked_query.subquery()
+        forecast_result = await self.db.execute(
+            select(forecast_ranked).where(forecast_ranked.c.rn == 1)
         )
-        inventories = inventory_result.scalars().all()
-
-        # Analyze each category
-        seen_categories = set()
-        for inv in inventories:
-            if inv.category_id in seen_categories:
-                continue
-            seen_categories.add(inv.category_id)
-
-            # Check if shortage predicted
-            if inv.days_of_supply and inv.days_of_supply < settings.shortage_warning_days:
-                # Calculate shortage date
-                shortage_date = datetime.utcnow() + timedelta(
-                    days=inv.days_of_supply
-                )
+        forecasts = {row.region_id: row for row in forecast_result.all()}
 
-                # Get risk factors
-                risk_factors = await self._identify_risk_factors(
-                    region_id, inv.category_id
-                )
+        disruption_result = await self.db.execute(
+            disruption_query.group_by(RouteDisruption.region_id)
+        )
+        disruption_counts = dict(disruption_result.all())
 
-                # Calculate confidence based on data quality
-                confidence = self._calculate_prediction_confidence(inv)
-
-                predictions.append(PredictedShortage(
-                    region_id=region_id,
-                    region_name=region.name,
-                    category_id=inv.category_id,
-                    category_name=inv.category.name if inv.category else f"Category {inv.category_id}",
-                    current_inventory_tonnes=inv.quantity_tonnes,
-                    days_of_supply=inv.days_of_supply,
-                    predicted_shortage_date=shortage_date,
-                    confidence_score=confidence,
-                    risk_factors=risk_factors,
-                    recommended_actions=self._generate_shortage_recommendations(
-                        inv.days_of_supply, risk_factors
-                    )
-                ))
+        anomaly_result = await self.db.execute(anomaly_query.distinct())
+        anomalies = {(rid, cid) for rid, cid in anomaly_result.all()}
 
-        return predictions
+        return forecasts, disruption_counts, anomalies
 
-    async def _identify_risk_factors(
-        self,
-        region_id: int,
-        category_id: int
+    @staticmethod
+    def _risk_factors_from(
+        forecast: Optional[Any],
+        disruption_count: int,
+        has_consumption_anomaly: bool
     ) -> List[str]:
         """Identify risk factors contributing to potential shortage."""
         factors = []
 
-        # Check for harvest forecast issues
-        forecast_result = await self.db.execute(
-            select(HarvestForecast)
-            .where(
-                and_(
-                    HarvestForecast.region_id == region_id,
-                    HarvestForecast.target_date > datetime.utcnow(),
-                    HarvestForecast.is_active == True
-                )
-            )
-            .order_by(HarvestForecast.target_date)
-            .limit(1)
-        )
-        forecast = forecast_result.scalar_one_or_none()
-
+        # Harvest forecast issues
         if forecast:
             if forecast.deviation_percentage and forecast.deviation_percentage < -20:
                 factors.append(
@@ -419,37 +484,12 @@ class ShortageAlertingService:
             if forecast.labor_risk and forecast.labor_risk > 0.5:
                 factors.append("Labor shortage affecting production")
 
-        # Check for distribution disruptions
-        disruption_result = await self.db.execute(
-            select(RouteDisruption)
-            .where(
-                and_(
-                    RouteDisruption.region_id == region_id,
-                    RouteDisruption.is_active == True
-                )
-            )
-        )
-        disruptions = disruption_result.scalars().all()
-
-        if disruptions:
-            factors.append(f"{len(disruptions)} active distribution disruptions")
-
-        # Check consumption anomalies
-        consumption_result = await self.db.execute(
-            select(ConsumptionPattern)
-            .where(
-                and_(
-                    ConsumptionPattern.region_id == region_id,
-                    ConsumptionPattern.category_id == category_id,
-                    ConsumptionPattern.anomaly_detected == True
-                )
-            )
-            .order_by(ConsumptionPattern.period_start.desc())
-            .limit(1)
-        )
-        consumption = consumption_result.scalar_one_or_none()
+        # Distribution disruptions
+        if disruption_count:
+            factors.append(f"{disruption_count} active distribution disruptions")
 
-        if consumption and consumption.anomaly_detected:
+        # Consumption anomalies
+        if has_consumption_anomaly:
             factors.append("Abnormal consumption pattern detected (possible panic buying)")
 
         if not factors:
@@ -457,8 +497,8 @@ class ShortageAlertingService:
 
         return factors
 
-    def _calculate_prediction_confidence(self, inventory: FoodInventory) -> float:
-        """Calculate confidence score for shortage prediction."""
+    def _calculate_prediction_confidence(self, inventory: Any) -> float:
+        """Calculate confidence score for shortage prediction (FoodInventory or row)."""
         confidence = 0.7  # Base confidence
 
         # Adjust based on data freshness
@@ -517,24 +557,26 @@ class ShortageAlertingService:
         return list(dict.fromkeys(recommendations))  # Remove duplicates
 
     async def auto_generate_alerts(self) -> List[ShortageAlert]:
-        """Automatically generate alerts based on shortage predictions."""
+        """
+        Automatically generate alerts based on shortage predictions.
+
+        Batch path: active (region, category) keys are loaded in one query,
+        new alerts and their history rows are written with multi-row
+        INSERTs, and notifications are matched once for the whole batch.
+        """
         predictions = await self.detect_shortages()
-        new_alerts = []
+        if not predictions:
+            return []
+
+        active_keys = await self._active_alert_keys()
+        now = datetime.utcnow()
+        alert_rows: List[Dict[str, Any]] = []
 
         for prediction in predictions:
-            # Check if alert already exists
-            existing = await self.db.execute(
-                select(ShortageAlert)
-                .where(
-                    and_(
-                        ShortageAlert.region_id == prediction.region_id,
-                        ShortageAlert.category_id == prediction.category_id,
-                        ShortageAlert.is_active == True
-                    )
-                )
-            )
-            if existing.scalar_one_or_none():
+            key = (prediction.region_id, prediction.category_id)
+            if key in active_keys:
                 continue  # Alert already exists
+            active_keys.add(key)
 
             # Determine alert level
             if prediction.days_of_supply < settings.shortage_critical_days:
@@ -544,7 +586,6 @@ class ShortageAlertingService:
             else:
                 level = AlertLevel.WARNING
 
-            # Create alert
             alert_data = ShortageAlertCreate(
                 region_id=prediction.region_id,
                 category_id=prediction.category_id,
@@ -565,13 +606,59 @@ class ShortageAlertingService:
                     {"action": rec, "priority": i + 1}
                     for i, rec in enumerate(prediction.recommended_actions[:5])
                 ]
+            ).model_dump()
+            alert_data.update(
+                alert_code=f"SA-{uuid.uuid4().hex[:8].upper()}",
+                status=AlertStatus.ACTIVE,
+                is_active=True,
+                created_at=now,
+                updated_at=now,
+            )
+            alert_rows.append(alert_data)
+
+        new_alerts: List[ShortageAlert] = []
+        for start in range(0, len(alert_rows), ALERT_INSERT_BATCH_SIZE):
+            result = await self.db.scalars(
+                insert(ShortageAlert).returning(ShortageAlert, sort_by_parameter_order=True),
+                alert_rows[start:start + ALERT_INSERT_BATCH_SIZE],
             )
+            new_alerts.extend(result.all())
 
-            alert = await self.create_alert(alert_data)
-            new_alerts.append(alert)
+        if not new_alerts:
+            return []
+
+        history_rows = [
+            {
+                "alert_id": alert.id,
+                "changed_at": now,
+                "new_level": alert.alert_level,
+                "new_status": AlertStatus.ACTIVE,
+                "change_reason": "Alert created",
+                "days_supply": alert.current_days_supply,
+                "inventory_tonnes": alert.current_inventory_tonnes,
+                "confidence_score": alert.confidence_score,
+            }
+            for alert in new_alerts
+        ]
+        await self.db.execute(insert(AlertHistory), history_rows)
+
+        await self._send_notifications_bulk(new_alerts)
+        self._invalidate_dashboard()
+        for alert in new_alerts:
+            event_bus.publish_after_commit(self.db, alert_event(ALERT_CREATED, alert))
 
+        logger.warning(f"Auto-generated {len(new_alerts)} shortage alerts")
         return new_alerts
 
+    async def _active_alert_keys(self) -> set:
+        """(region_id, category_id) pairs that already have an active alert."""
+        result = await self.db.execute(
+            select(ShortageAlert.region_id, ShortageAlert.category_id)
+            .where(ShortageAlert.is_active == True)
+            .distinct()
+        )
+        return {(row.region_id, row.category_id) for row in result}
+
     # ==================== Subscriptions ====================
 
     async def create_subscription(
@@ -579,11 +666,12 @@ class ShortageAlertingService:
         data: AlertSubscriptionCreate
     ) -> AlertSubscription:
         """Create an alert subscription."""
-        subscription = AlertSubscription(**data.model_dump())
+        subscription = AlertSubscription(**self._subscription_values(data.model_dump()))
         subscription.verification_token = uuid.uuid4().hex
         self.db.add(subscription)
         await self.db.flush()
         await self.db.refresh(subscription)
+        run_after_commit(self.db, lambda: subscription_index.upsert(subscription))
 
         logger.info(
             f"Created subscription for {data.subscriber_name} "
@@ -591,6 +679,35 @@ class ShortageAlertingService:
         )
         return subscription
 
+    async def update_subscription(
+        self,
+        subscription_id: int,
+        data: AlertSubscriptionUpdate
+    ) -> Optional[AlertSubscription]:
+        """Update an alert subscription."""
+        subscription = await self.db.get(AlertSubscription, subscription_id)
+        if not subscription:
+            return None
+
+        for field, value in self._subscription_values(data.model_dump(exclude_unset=True)).items():
+            setattr(subscription, field, value)
+
+        await self.db.flush()
+        await self.db.refresh(subscription)
+        run_after_commit(self.db, lambda: subscription_index.upsert(subscription))
+
+        logger.info(f"Updated subscription {subscription_id}")
+        return subscription
+
+    @staticmethod
+    def _subscription_values(values: Dict[str, Any]) -> Dict[str, Any]:
+        """Store alert_types as plain strings (the column is JSON)."""
+        if values.get("alert_types"):
+            values["alert_types"] = [
+                t.value if hasattr(t, "value") else t for t in values["alert_types"]
+            ]
+        return values
+
     async def list_subscriptions(
         self,
         is_active: bool = True
@@ -605,104 +722,149 @@ class ShortageAlertingService:
 
     async def _send_notifications(self, alert: ShortageAlert) -> None:
         """Send notifications for a new alert."""
-        subscriptions = await self.list_subscriptions()
-
-        for sub in subscriptions:
-            # Check if subscription matches alert criteria
-            if not self._subscription_matches_alert(sub, alert):
-                continue
-
-            # Queue notification (in production, use message queue)
-            logger.info(
-                f"Notification queued: {alert.alert_code} -> {sub.subscriber_email}"
-            )
-
-            # Update subscription stats
-            sub.last_notification_at = datetime.utcnow()
-            sub.notifications_sent = (sub.notifications_sent or 0) + 1
+        await self._send_notifications_bulk([alert])
+
+    async def _send_notifications_bulk(self, alerts: List[ShortageAlert]) -> None:
+        """
+        Match new alerts against subscriptions and write outbox rows.
+
+        Matching goes through the in-memory subscription index, once per
+        distinct (region, category, type, level). One outbox row per
+        (alert, subscription, channel) is inserted in the alert's own
+        transaction; delivery and subscription stats are handled by the
+        notification dispatcher after commit.
+        """
+        if not alerts:
+            return
+        await subscription_index.ensure_loaded(self.db)
+
+        matched_by_key: Dict[tuple, list] = {}
+        rows: List[Dict[str, Any]] = []
+        for alert in alerts:
+            key = (alert.region_id, alert.category_id, alert.alert_type, alert.alert_level)
+            if key not in matched_by_key:
+                matched_by_key[key] = subscription_index.match(*key)
+            payload = self._notification_payload(alert)
+            for entry in matched_by_key[key]:
+                for channel, recipient in entry.recipients:
+                    rows.append({
+                        "alert_id": alert.id,
+                        "subscription_id": entry.id,
+                        "channel": channel,
+                        "recipient": recipient,
+                        "payload": payload,
+                        "dedup_key": f"alert:{alert.id}:sub:{entry.id}:{channel}",
+                    })
+
+        await self._enqueue_notifications(rows)
 
     async def _send_escalation_notifications(
         self,
         alert: ShortageAlert,
         escalate_to: List[str]
     ) -> None:
-        """Send escalation notifications."""
-        for contact in escalate_to:
-            logger.warning(
-                f"Escalation notification: {alert.alert_code} -> {contact}"
-            )
-
-    def _subscription_matches_alert(
-        self,
-        subscription: AlertSubscription,
-        alert: ShortageAlert
-    ) -> bool:
-        """Check if subscription criteria match the alert."""
-        # Check minimum level
-        level_order = {
-            AlertLevel.NORMAL: 0,
-            AlertLevel.WARNING: 1,
-            AlertLevel.IMMINENT: 2,
-            AlertLevel.CRITICAL: 3
+        """Queue escalation notifications in the outbox."""
+        payload = self._notification_payload(alert)
+        await self._enqueue_notifications([
+            {
+                "alert_id": alert.id,
+                "subscription_id": None,
+                "channel": "escalation",
+                "recipient": contact,
+                "payload": payload,
+                "dedup_key": f"alert:{alert.id}:escalation:{alert.escalation_level}:{contact}",
+            }
+            for contact in escalate_to
+        ])
+
+    @staticmethod
+    def _notification_payload(alert: ShortageAlert) -> Dict[str, Any]:
+        return {
+            "alert_id": alert.id,
+            "alert_code": alert.alert_code,
+            "alert_type": alert.alert_type.value,
+            "alert_level": alert.alert_level.value,
+            "title": alert.title,
+            "description": alert.description,
+            "region_id": alert.region_id,
+            "category_id": alert.category_id,
+            "days_until_shortage": alert.days_until_shortage,
         }
-        if level_order.get(alert.alert_level, 0) < level_order.get(
-            subscription.minimum_alert_level, 0
-        ):
-            return False
-
-        # Check region filter
-        if subscription.region_ids and alert.region_id not in subscription.region_ids:
-            return False
-
-        # Check category filter
-        if subscription.category_ids and alert.category_id not in subscription.category_ids:
-            return False
 
-        # Check alert type filter
-        if subscription.alert_types:
-            alert_type_values = [t.value if hasattr(t, 'value') else t for t in subscription.alert_types]
-            if alert.alert_type.value not in alert_type_values:
-                return False
-
-        return True
+    async def _enqueue_notifications(self, rows: List[Dict[str, Any]]) -> None:
+        """Insert outbox rows, skipping dedup keys that are already queued."""
+        now = datetime.utcnow()
+        for row in rows:
+            row.update(status="pending", attempts=0, next_attempt_at=now,
+                       created_at=now, updated_at=now)
+        for start in range(0, len(rows), OUTBOX_INSERT_BATCH_SIZE):
+            await self.db.execute(
+                pg_insert(NotificationOutbox)
+                .values(rows[start:start + OUTBOX_INSERT_BATCH_SIZE])
+                .on_conflict_do_nothing(index_elements=["dedup_key"])
+            )
+        if rows:
+            logger.info(f"Queued {len(rows)} notifications")
 
     # ==================== Analytics ====================
 
     async def get_dashboard(self) -> AlertDashboard:
-        """Get alert dashboard data."""
-        # Active alerts by level
-        level_counts = await self.db.execute(
-            select(ShortageAlert.alert_level, func.count())
-            .where(ShortageAlert.is_active == True)
-            .group_by(ShortageAlert.alert_level)
+        """Get alert dashboard data (cached; invalidated on alert writes)."""
+        cached = await dashboard_cache.get_many([DASHBOARD_CACHE_KEY])
+        if DASHBOARD_CACHE_KEY in cached:
+            return AlertDashboard.model_validate(cached[DASHBOARD_CACHE_KEY])
+
+        # Read the generation before building: if an alert write commits
+        # and invalidates meanwhile, this (possibly stale) build is not cached
+        generation = await dashboard_cache.generation()
+        dashboard = await self._build_dashboard()
+        await dashboard_cache.set_many_if_unchanged(
+            {DASHBOARD_CACHE_KEY: dashboard.model_dump(mode="json")}, generation
         )
-        by_level = {row[0].value: row[1] for row in level_counts.all()}
-
-        # Active alerts by type
-        type_counts = await self.db.execute(
-            select(ShortageAlert.alert_type, func.count())
-            .where(ShortageAlert.is_active == True)
-            .group_by(ShortageAlert.alert_type)
-        )
-        by_type = {row[0].value: row[1] for row in type_counts.all()}
-
-        # By region
-        region_counts = await self.db.execute(
-            select(ShortageAlert.region_id, func.count())
+        return dashboard
+
+    def _invalidate_dashboard(self) -> None:
+        """Drop the cached dashboard once the current transaction commits."""
+        run_after_commit(self.db, lambda: dashboard_cache.invalidate([DASHBOARD_CACHE_KEY]))
+
+    async def _build_dashboard(self) -> AlertDashboard:
+        # Active alerts by level, type and region in one pass
+        counts = await self.db.execute(
+            select(
+                ShortageAlert.alert_level,
+                ShortageAlert.alert_type,
+                ShortageAlert.region_id,
+                func.grouping(ShortageAlert.alert_level).label("by_level"),
+                func.grouping(ShortageAlert.alert_type).label("by_type"),
+                func.count().label("count"),
+            )
             .where(ShortageAlert.is_active == True)
-            .group_by(ShortageAlert.region_id)
+            .group_by(func.grouping_sets(
+                ShortageAlert.alert_level,
+                ShortageAlert.alert_type,
+                ShortageAlert.region_id,
+            ))
         )
-        by_region = {str(row[0]): row[1] for row in region_counts.all()}
+        by_level, by_type, by_region = {}, {}, {}
+        for row in counts:
+            # grouping() is 0 for the column a row is grouped by
+            if row.by_level == 0:
+                by_level[row.alert_level.value] = row.count
+            elif row.by_type == 0:
+                by_type[row.alert_type.value] = row.count
+            else:
+                by_region[str(row.region_id)] = row.count
 
         # Total active
         total_active = sum(by_level.values())
 
         # Critical alerts
-        critical, _ = await self.list_alerts(
+        critical = (await self.list_alerts(
             alert_level=AlertLevel.CRITICAL,
             is_active=True,
-            limit=10
-        )
+            limit=10,
+            count="none"
+        )).items
 
         # Recent alerts (last 24 hours)
         recent_cutoff = datetime.utcnow() - timedelta(hours=24)
@@ -715,23 +877,16 @@ class ShortageAlertingService:
         recent = recent_result.scalars().all()
 
         # 7-day trend
-        trend_data = {}
-        for i in range(7):
-            date = datetime.utcnow().date() - timedelta(days=i)
-            start = datetime.combine(date, datetime.min.time())
-            end = datetime.combine(date, datetime.max.time())
-
-            count_result = await self.db.execute(
-                select(func.count())
-                .select_from(ShortageAlert)
-                .where(
-                    and_(
-                        ShortageAlert.created_at >= start,
-                        ShortageAlert.created_at <= end
-                    )
-                )
-            )
-            trend_data[date.isoformat()] = count_result.scalar() or 0
+        today = datetime.utcnow().date()
+        days = [today - timedelta(days=i) for i in range(7)]
+        day = func.date_trunc("day", ShortageAlert.created_at).label("day")
+        trend_result = await self.db.execute(
+            select(day, func.count())
+            .where(ShortageAlert.created_at >= datetime.combine(days[-1], datetime.min.time()))
+            .group_by(day)
+        )
+        per_day = {row[0].date(): row[1] for row in trend_result}
+        trend_data = {d.isoformat(): per_day.get(d, 0) for d in days}
 
         # Build alert summaries
         def to_summary(alert: ShortageAlert) -> AlertSummary:
@@ -760,7 +915,7 @@ class ShortageAlertingService:
 
     async def get_risk_assessment(self, region_id: int) -> ShortageRiskAssessment:
         """Get comprehensive shortage risk assessment for a region."""
-        predictions = await self._analyze_region_shortages(region_id)
+        predictions = await self.detect_shortages(region_id=region_id)
 
         # Categorize by risk level
         categories_at_risk = []
@@ -0,0 +1,193 @@
+"""
+Distribution Center Spatial Index
+
+Keeps an in-process KD-tree of operational distribution centers so that
+radius and k-nearest lookups are answered from memory instead of scanning
+the distribution_centers table on every request.
+
+Centers are stored as unit vectors on the sphere; a great-circle radius
+maps monotonically to a straight-line chord radius, so the tree answers
+geodesic queries exactly.
+"""
+
+import asyncio
+import logging
+import time
+from typing import List, Optional, Dict, Any, Tuple
+
+import numpy as np
+from scipy.spatial import cKDTree
+from sqlalchemy.ext.asyncio import AsyncSession
+from sqlalchemy import select, and_
+
+from models.distribution import DistributionCenter
+from schemas.distribution import DistributionCenterResponse
+from services.geo_math import to_unit_vectors, km_to_chord, chord_to_km
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+
+class CenterSpatialIndex:
+    """
+    Process-wide spatial index over active, operational distribution centers.
+
+    The index is loaded lazily from the database on first use and fully
+    reloaded every ``spatial_index_refresh_seconds`` so writes made by other
+    worker processes are eventually picked up. Writes made through
+    DistributionNetworkService are applied via ``upsert`` once committed.
+    """
+
+    def __init__(self, refresh_seconds: int):
+        self.refresh_seconds = refresh_seconds
+        self._entries: Dict[int, Dict[str, Any]] = {}
+        self._coords: Dict[int, Tuple[float, float]] = {}
+        self._ids: np.ndarray = np.empty(0, dtype=np.int64)
+        self._tree: Optional[cKDTree] = None
+        self._dirty = True
+        self._loaded_at: Optional[float] = None
+        self._lock = asyncio.Lock()
+
+    # ── loading ──────────────────────────────────────────────────────
+
+    def _is_stale(self) -> bool:
+        if self._loaded_at is None:
+            return True
+        return time.monotonic() - self._loaded_at > self.refresh_seconds
+
+    async def ensure_loaded(self, db: AsyncSession) -> None:
+        """Load (or periodically reload) the index from the database."""
+        if not self._is_stale():
+            return
+        async with self._lock:
+            if self._is_stale():
+                await self.reload(db)
+
+    async def reload(self, db: AsyncSession) -> None:
+        """Rebuild the index from all active, operational centers."""
+        result = await db.execute(
+            select(DistributionCenter).where(
+                and_(
+                    DistributionCenter.is_active == True,
+                    DistributionCenter.operational_status == "operational"
+                )
+            )
+        )
+        centers = result.scalars().all()
+
+        self._entries.clear()
+        self._coords.clear()
+        for center in centers:
+            self._store(center)
+        self._dirty = True
+        self._loaded_at = time.monotonic()
+        logger.info(f"Spatial index loaded with {len(self._entries)} centers")
+
+    # ── incremental updates ──────────────────────────────────────────
+
+    def upsert(self, center: DistributionCenter) -> None:
+        """Insert, move or drop a center after it was created/updated."""
+        if center.is_active and center.operational_status == "operational":
+            self._store(center)
+        else:
+            self._entries.pop(center.id, None)
+            self._coords.pop(center.id, None)
+        self._dirty = True
+
+    def remove(self, center_id: int) -> None:
+        """Drop a center from the index."""
+        self._entries.pop(center_id, None)
+        self._coords.pop(center_id, None)
+        self._dirty = True
+
+    def _store(self, center: DistributionCenter) -> None:
+        self._entries[center.id] = DistributionCenterResponse.model_validate(
+            center
+        ).model_dump(mode="json")
+        self._coords[center.id] = (center.latitude, center.longitude)
+
+    def _rebuild_tree(self) -> None:
+        """Rebuild the KD-tree if any entry changed since the last build."""
+        if not self._dirty:
+            return
+        if self._coords:
+            ids = np.fromiter(self._coords.keys(), dtype=np.int64, count=len(self._coords))
+            coords = np.array(list(self._coords.values()), dtype=float)
+            self._ids = ids
+            self._tree = cKDTree(to_unit_vectors(coords[:, 0], coords[:, 1]))
+        else:
+            self._ids = np.empty(0, dtype=np.int64)
+            self._tree = None
+        self._dirty = False
+
+    # ── queries ──────────────────────────────────────────────────────
+
+    def query_radius(
+        self,
+        latitude: float,
+        longitude: float,
+        radius_km: float,
+        limit: Optional[int] = None
+    ) -> List[Dict[str, Any]]:
+        """Centers within radius_km, closest first."""
+        self._rebuild_tree()
+        if self._tree is None:
+            return []
+
+        point = to_unit_vectors(np.array([latitude]), np.array([longitude]))[0]
+        idx = self._tree.query_ball_point(point, r=km_to_chord(radius_km))
+        if not idx:
+            return []
+
+        idx = np.asarray(idx, dtype=np.int64)
+        chords = np.linalg.norm(self._tree.data[idx] - point, axis=1)
+        distances = chord_to_km(chords)
+        order = np.argsort(distances, kind="stable")
+        if limit is not None:
+            order = order[:limit]
+
+        return [
+            {
+                "center": self._entries[int(self._ids[idx[i]])],
+                "distance_km": round(float(distances[i]), 3),
+            }
+            for i in order
+        ]
+
+    def query_nearest(
+        self,
+        latitude: float,
+        longitude: float,
+        k: int,
+        max_distance_km: Optional[float] = None
+    ) -> List[Dict[str, Any]]:
+        """The k nearest centers, optionally bounded by max_distance_km."""
+        self._rebuild_tree()
+        if self._tree is None or k <= 0:
+            return []
+
+        k = min(k, len(self._ids))
+        point = to_unit_vectors(np.array([latitude]), np.array([longitude]))[0]
+        upper = km_to_chord(max_distance_km) if max_distance_km is not None else np.inf
+        chords, idx = self._tree.query(point, k=k, distance_upper_bound=upper)
+
+        chords = np.atleast_1d(chords)
+        idx = np.atleast_1d(idx)
+        found = np.isfinite(chords)
+        distances = chord_to_km(chords[found])
+
+        return [
+            {
+                "center": self._entries[int(self._ids[i])],
+                "distance_km": round(float(d), 3),
+            }
+            for i, d in zip(idx[found], distances)
+        ]
+
+    def __len__(self) -> int:
+        return len(self._entries)
+
+
+# Process-wide index shared by all requests
+center_index = CenterSpatialIndex(refresh_seconds=settings.spatial_index_refresh_seconds)
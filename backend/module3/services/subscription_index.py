@@ -0,0 +1,230 @@
+"""
+Alert Subscription Index
+
+Keeps an in-process inverted index of active alert subscriptions so that
+matching a new alert costs roughly O(matching subscriptions) instead of
+scanning every subscription's region/category/type lists.
+
+Each filter dimension maps a value to the subscriptions that list it,
+plus a wildcard set for subscriptions with no filter on that dimension.
+Matching starts from the smallest candidate set and checks the remaining
+dimensions with O(1) set lookups.
+"""
+
+import asyncio
+import logging
+import time
+from dataclasses import dataclass
+from typing import Dict, FrozenSet, List, Optional, Set, Tuple
+
+from sqlalchemy.ext.asyncio import AsyncSession
+from sqlalchemy import select
+
+from models.alerts import AlertSubscription, AlertLevel, AlertType
+from config import get_settings
+
+logger = logging.getLogger(__name__)
+settings = get_settings()
+
+# Level assumed for subscriptions that do not set minimum_alert_level
+DEFAULT_MINIMUM_ALERT_LEVEL = AlertLevel.WARNING
+
+LEVEL_ORDER = {
+    AlertLevel.NORMAL: 0,
+    AlertLevel.WARNING: 1,
+    AlertLevel.IMMINENT: 2,
+    AlertLevel.CRITICAL: 3,
+}
+
+
+def level_rank(level) -> int:
+    if isinstance(level, str):
+        level = AlertLevel(level)
+    return LEVEL_ORDER.get(level, 0)
+
+
+def _type_value(alert_type) -> str:
+    return alert_type.value if hasattr(alert_type, "value") else alert_type
+
+
+@dataclass(frozen=True)
+class SubscriptionEntry:
+    """Matching-relevant fields of an active subscription."""
+    id: int
+    subscriber_email: Optional[str]
+    recipients: Tuple[Tuple[str, str], ...]  # (channel, address) per enabled channel
+    min_level: int
+    region_ids: Optional[FrozenSet[int]]  # None = all regions
+    category_ids: Optional[FrozenSet[int]]  # None = all categories
+    alert_types: Optional[FrozenSet[str]]  # None = all types
+
+    @classmethod
+    def from_model(cls, sub: AlertSubscription) -> "SubscriptionEntry":
+        # Empty lists mean "no filter", same as null
+        return cls(
+            id=sub.id,
+            subscriber_email=sub.subscriber_email,
+            recipients=tuple(
+                (channel, address)
+                for channel, enabled, address in (
+                    ("email", sub.notify_email, sub.subscriber_email),
+                    ("sms", sub.notify_sms, sub.subscriber_phone),
+                    ("webhook", sub.notify_webhook, sub.webhook_url),
+                )
+                if enabled and address
+            ),
+            min_level=level_rank(sub.minimum_alert_level or DEFAULT_MINIMUM_ALERT_LEVEL),
+            region_ids=frozenset(sub.region_ids) if sub.region_ids else None,
+            category_ids=frozenset(sub.category_ids) if sub.category_ids else None,
+            alert_types=(
+                frozenset(_type_value(t) for t in sub.alert_types)
+                if sub.alert_types else None
+            ),
+        )
+
+
+class _Dimension:
+    """Inverted index over one filter dimension."""
+
+    def __init__(self):
+        self.by_value: Dict[object, Set[int]] = {}
+        self.wildcard: Set[int] = set()
+
+    def add(self, sub_id: int, values: Optional[FrozenSet]) -> None:
+        if values is None:
+            self.wildcard.add(sub_id)
+            return
+        for value in values:
+            self.by_value.setdefault(value, set()).add(sub_id)
+
+    def remove(self, sub_id: int, values: Optional[FrozenSet]) -> None:
+        if values is None:
+            self.wildcard.discard(sub_id)
+            return
+        for value in values:
+            ids = self.by_value.get(value)
+            if ids is not None:
+                ids.discard(sub_id)
+                if not ids:
+                    del self.by_value[value]
+
+    def candidates(self, value) -> Tuple[Set[int], Set[int]]:
+        return self.by_value.get(value, set()), self.wildcard
+
+    def clear(self) -> None:
+        self.by_value.clear()
+        self.wildcard.clear()
+
+
+class SubscriptionIndex:
+    """
+    Process-wide inverted index over active alert subscriptions.
+
+    Loaded lazily and fully reloaded every
+    ``subscription_index_refresh_seconds`` so writes from other worker
+    processes are eventually picked up. Writes made through
+    ShortageAlertingService are applied via ``upsert`` once committed.
+    """
+
+    def __init__(self, refresh_seconds: int):
+        self.refresh_seconds = refresh_seconds
+        self._entries: Dict[int, SubscriptionEntry] = {}
+        self._regions = _Dimension()
+        self._categories = _Dimension()
+        self._types = _Dimension()
+        self._loaded_at: Optional[float] = None
+        self._lock = asyncio.Lock()
+
+    # ── loading ──────────────────────────────────────────────────────
+
+    def _is_stale(self) -> bool:
+        if self._loaded_at is None:
+            return True
+        return time.monotonic() - self._loaded_at > self.refresh_seconds
+
+    async def ensure_loaded(self, db: AsyncSession) -> None:
+        """Load (or periodically reload) the index from the database."""
+        if not self._is_stale():
+            return
+        async with self._lock:
+            if self._is_stale():
+                await self.reload(db)
+
+    async def reload(self, db: AsyncSession) -> None:
+        """Rebuild the index from all active subscriptions."""
+        result = await db.execute(
+            select(AlertSubscription).where(AlertSubscription.is_active == True)
+        )
+        self._entries.clear()
+        for dimension in (self._regions, self._categories, self._types):
+            dimension.clear()
+        for sub in result.scalars().all():
+            self._store(SubscriptionEntry.from_model(sub))
+        self._loaded_at = time.monotonic()
+        logger.info(f"Subscription index loaded with {len(self._entries)} subscriptions")
+
+    def invalidate(self) -> None:
+        """Force a full reload on next use."""
+        self._loaded_at = None
+
+    # ── incremental updates ──────────────────────────────────────────
+
+    def upsert(self, subscription: AlertSubscription) -> None:
+        """Insert, replace or drop a subscription after it was created/updated."""
+        self.remove(subscription.id)
+        if subscription.is_active:
+            self._store(SubscriptionEntry.from_model(subscription))
+
+    def remove(self, subscription_id: int) -> None:
+        entry = self._entries.pop(subscription_id, None)
+        if entry is None:
+            return
+        self._regions.remove(entry.id, entry.region_ids)
+        self._categories.remove(entry.id, entry.category_ids)
+        self._types.remove(entry.id, entry.alert_types)
+
+    def _store(self, entry: SubscriptionEntry) -> None:
+        self._entries[entry.id] = entry
+        self._regions.add(entry.id, entry.region_ids)
+        self._categories.add(entry.id, entry.category_ids)
+        self._types.add(entry.id, entry.alert_types)
+
+    # ── queries ──────────────────────────────────────────────────────
+
+    def match(
+        self,
+        region_id: int,
+        category_id: Optional[int],
+        alert_type: AlertType,
+        alert_level: AlertLevel
+    ) -> List[SubscriptionEntry]:
+        """Subscriptions whose filters and minimum level accept the alert."""
+        dimensions = [
+            (self._regions.candidates(region_id), "region_ids", region_id),
+            (self._categories.candidates(category_id), "category_ids", category_id),
+            (self._types.candidates(_type_value(alert_type)), "alert_types", _type_value(alert_type)),
+        ]
+        # Walk the most selective dimension, check the others per entry
+        (exact, wildcard), _, _ = min(dimensions, key=lambda d: len(d[0][0]) + len(d[0][1]))
+        rank = level_rank(alert_level)
+
+        matches = []
+        for sub_id in (*exact, *wildcard):
+            entry = self._entries[sub_id]
+            if rank < entry.min_level:
+                continue
+            if all(
+                getattr(entry, field) is None or value in getattr(entry, field)
+                for _, field, value in dimensions
+            ):
+                matches.append(entry)
+        return matches
+
+    def __len__(self) -> int:
+        return len(self._entries)
+
+
+# Process-wide index shared by all requests
+subscription_index = SubscriptionIndex(
+    refresh_seconds=settings.subscription_index_refresh_seconds
+)
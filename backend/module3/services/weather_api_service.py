@@ -11,6 +11,7 @@ from typing import List, Dict, Any
 import httpx
 from tenacity import retry, stop_after_attempt, wait_exponential, retry_if_exception_type
 
+from services.http_client import http_clients
 from config import get_settings
 
 logger = logging.getLogger(__name__)
@@ -29,7 +30,6 @@ class WeatherAPIService:
     def __init__(self):
         self.api_key = settings.weather_api_key
         self.base_url = settings.weather_api_url
-        self.timeout = settings.external_api_timeout_seconds
 
     async def get_current_weather(self, lat: float, lon: float) -> Dict[str, Any]:
         """
@@ -130,10 +130,9 @@ class WeatherAPIService:
         params["appid"] = self.api_key
         url = f"{self.base_url}/{endpoint}"
 
-        async with httpx.AsyncClient(timeout=self.timeout) as client:
-            response = await client.get(url, params=params)
-            response.raise_for_status()
-            data = response.json()
+        response = await http_clients.get(url, params=params)
+        response.raise_for_status()
+        data = response.json()
 
         if data.get("cod") and str(data["cod"]) not in ("200",):
             error_msg = data.get("message", "Unknown error")